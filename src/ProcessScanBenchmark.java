@@ -0,0 +1,51 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import Processes.ProcessSnapshot;
+import Processes.Sources.ProcStatSource;
+import Processes.Sources.ProcessHandleSource;
+import Processes.Sources.ProcessSource;
+
+/**
+ * Measures the time and heap allocation of a single process scan for every
+ * {@link ProcessSource} available on the current machine.
+ * <p>
+ * Allocations are read from the per-thread counter of {@code com.sun.management.ThreadMXBean},
+ * so the numbers include everything the scan allocates, including the snapshot itself.
+ * </p>
+ */
+public class ProcessScanBenchmark {
+    private static final int WARMUP_SCANS = 200;
+    private static final int MEASURED_SCANS = 1000;
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+
+        List<ProcessSource> sources = new ArrayList<>();
+        if (ProcStatSource.isSupported()) {
+            sources.add(new ProcStatSource());
+        }
+        sources.add(new ProcessHandleSource());
+
+        System.out.printf("%-16s %10s %14s %14s%n", "source", "processes", "us/scan", "bytes/scan");
+        for (ProcessSource source : sources) {
+            for (int i = 0; i < WARMUP_SCANS; i++) {
+                source.scan();
+            }
+            int processes = 0;
+            long bytesBefore = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_SCANS; i++) {
+                ProcessSnapshot snapshot = source.scan();
+                processes = snapshot.size();
+            }
+            long elapsed = System.nanoTime() - start;
+            long bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+            System.out.printf("%-16s %10d %14.1f %14d%n", source.getName(), processes,
+                    elapsed / 1000.0 / MEASURED_SCANS, bytes / MEASURED_SCANS);
+        }
+    }
+}
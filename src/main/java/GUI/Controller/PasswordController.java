@@ -151,6 +151,7 @@ public class PasswordController {
     public void closeAppVerifyPassword() {
         if (mainApp.getProgram().db.adminRepository.checkPassword(passwordField.getText())) {
             passwordField.setText("");
+            mainApp.getProgram().stop();
             SystemTray.getSystemTray().remove(mainApp.trayIcon);
             Platform.exit();
             System.exit(0);
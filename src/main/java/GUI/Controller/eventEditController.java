@@ -162,7 +162,9 @@ public class eventEditController {
             minute.setText("0");
             return;
         }
-        this.evt = evt;
+        // Edit a copy: the event comes from the cached event list, which must not change until saved.
+        this.evt = new EventInfo(evt.getId(), evt.getUser_id(), evt.getEvent_name(), evt.getTime(),
+                evt.isBefore_at(), evt.isRepeat(), evt.getCreated_at());
         hour.setText(Integer.toString(evt.getTime() / 60));
         minute.setText(Integer.toString(evt.getTime() % 60));
         RepeatCheckbox.setSelected(evt.isRepeat());
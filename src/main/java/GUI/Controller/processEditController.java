@@ -115,7 +115,9 @@ public class processEditController {
             time_limit.setText("0");
             return;
         }
-        this.prs = process;
+        // Edit a copy: the process comes from the cached rule set, which must not change until saved.
+        this.prs = new ProcessInfo(process.getId(), process.getUser_id(), process.getProcess_name(),
+                process.getTotal_time(), process.getTime_limit());
         processUrl.setText(process.getProcess_name());
         time_limit.setText(Integer.toString(process.getTime_limit()));
         System.out.println("Merge");
@@ -193,6 +193,7 @@ public void init() throws Exception {
     @Override
     public void stop() throws Exception {
         Logger.warn("Application is stopping...");
+        program.stop();
         System.exit(0);
     }
 
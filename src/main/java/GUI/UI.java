@@ -3,7 +3,8 @@ package GUI;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
 
 import org.tinylog.Logger;
 
@@ -15,6 +16,7 @@ import Processes.Managers.UsageManager;
 import Processes.ProcessInfo;
 import Processes.Program;
 import Processes.UserInfo;
+import db.Database;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -94,7 +96,7 @@ public class UI {
         primaryStage.getIcons().add(
             new Image(getClass().getResourceAsStream("/Images/icon.png"))
         );
-        ArrayList<UserInfo> users = program.db.userRepository.getUsers();
+        List<UserInfo> users = program.db.userRepository.getUsers();
         if (!users.isEmpty()) {
             populateUsersMenu(users);
             populateProgramList(users.getFirst());
@@ -206,6 +208,17 @@ public class UI {
         });
     }
 
+    /**
+     * Counts the calls to {@link #populateProgramList(UserInfo)}, so the lists are only filled by
+     * the loads of the latest one. Only used on the JavaFX application thread.
+     */
+    private int programListRequest = 0;
+
+    /**
+     * The ID of the user whose rules and events the lists show, {@code -1} before the first load.
+     */
+    private int programListUser = -1;
+
     /**
      * Populates the {@code processes} and {@code events} ListViews with data belonging to the selected user.
      *
@@ -213,8 +226,24 @@ public class UI {
      */
     public void populateProgramList(UserInfo user) {
         int user_id = user.getId() - 1;
-        ArrayList<ProcessInfo> prs = program.db.processRepository.getProcesses(user_id);
-        processes.getItems().setAll(prs);
+        // Loads finish out of order; only the latest request may fill the lists.
+        int request = ++programListRequest;
+        if (user_id != programListUser) {
+            // Never show the rows of the previous user, whose EDIT buttons would act on them.
+            processes.getItems().clear();
+            events.getItems().clear();
+            programListUser = user_id;
+        }
+        Database.onFxThread(program.db.processRepository.getProcessesAsync(user_id))
+                .thenAccept(prs -> {
+                    if (request == programListRequest) {
+                        processes.getItems().setAll(prs);
+                    }
+                })
+                .exceptionally(e -> {
+                    processes.setPlaceholder(new Label("Could not load processes"));
+                    return reportLoadFailure("processes", e);
+                });
         processes.setCellFactory(listView -> new ListCell<>() {
             private final Button btn = new Button("EDIT");
             private final HBox hbox = new HBox(10);
@@ -231,14 +260,23 @@ public class UI {
                 if (empty || item == null) {
                     setGraphic(null);
                 } else {
-                    label.setText(item.getProcess_name() + "   TIME OPEN: " + item.getTotal_time());
+                    long timeOpen = item.getTotal_time() + program.db.usageAccumulator.getPendingRuleTime(item.getId());
+                    label.setText(item.getProcess_name() + "   TIME OPEN: " + timeOpen);
                     setGraphic(hbox);
                 }
             }
         });
 
-        ArrayList<EventInfo> evts = program.db.eventRepository.getEvents(user_id);
-        events.getItems().setAll(evts);
+        Database.onFxThread(program.db.eventRepository.getEventsAsync(user_id))
+                .thenAccept(evts -> {
+                    if (request == programListRequest) {
+                        events.getItems().setAll(evts);
+                    }
+                })
+                .exceptionally(e -> {
+                    events.setPlaceholder(new Label("Could not load events"));
+                    return reportLoadFailure("events", e);
+                });
         events.setCellFactory(listView -> new ListCell<>() {
             private final Button btn = new Button("EDIT");
             private final HBox hbox = new HBox(10);
@@ -351,7 +389,7 @@ public class UI {
      *
      * @param users an optional list of users; if null, they are fetched from the database.
      */
-    public void populateUsersMenu(ArrayList<UserInfo> users) {
+    public void populateUsersMenu(List<UserInfo> users) {
         if (users == null) {
             users = program.db.userRepository.getUsers();
         }
@@ -384,19 +422,44 @@ public class UI {
     public void updateDashboard() {
             pieChart1.getData().clear();
             pieChart1.setTitle("TOP 10 processes by TIME");
-            ArrayList<ProcessInfo> processes = program.db.usageTrackingRepository.getUsageTrackingTopTen(program.user);
-            pieChart1.getData().clear();
-            if (processes.isEmpty()) {
-                Logger.warn("No processes found for user " + program.user.getName());
-                pieChart1.setTitle("No processes found for user " + program.user.getName());
-            } else {
-                for (ProcessInfo process : processes) {
-                    PieChart.Data data = new PieChart.Data(process.getProcess_name(), process.getTotal_time());
-                    pieChart1.getData().add(data);
+            Database.onFxThread(program.db.usageTrackingRepository.getUsageTrackingTopTenAsync(program.user)).thenAccept(processes -> {
+                pieChart1.getData().clear();
+                if (processes.isEmpty()) {
+                    Logger.warn("No processes found for user " + program.user.getName());
+                    pieChart1.setTitle("No processes found for user " + program.user.getName());
+                } else {
+                    for (ProcessInfo process : processes) {
+                        PieChart.Data data = new PieChart.Data(process.getProcess_name(), process.getTotal_time());
+                        pieChart1.getData().add(data);
+                    }
                 }
-            }
+            }).exceptionally(e -> {
+                pieChart1.setTitle("Could not load processes for user " + program.user.getName());
+                return reportLoadFailure("usage tracking", e);
+            });
+
+        Database.onFxThread(program.db.dailyUsageRepository.getDailyUsageAsync(program.user))
+                .thenAccept(dailyUsage -> UsageManager.displayDailyUsage(dailyHoursChart, dailyUsage))
+                .exceptionally(e -> {
+                    dailyHoursChart.setTitle("Could not load daily usage");
+                    return reportLoadFailure("daily usage", e);
+                });
+    }
 
-        UsageManager.displayDailyUsage(dailyHoursChart, program.db.dailyUsageRepository.getDailyUsage(program.user));
+    /**
+     * Logs a failed load and hands it to the uncaught exception handler of the JavaFX application
+     * thread, where the failure surfaced when the data was loaded synchronously.
+     *
+     * @param what The data that failed to load.
+     * @param e    The failure, possibly wrapped in a {@link CompletionException}.
+     * @return {@code null}, so it can end an {@code exceptionally} stage.
+     */
+    private static Void reportLoadFailure(String what, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        Logger.error("Error loading " + what + ": " + cause.getMessage());
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, cause);
+        return null;
     }
 
     /**
@@ -0,0 +1,228 @@
+package Processes.Managers;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.tinylog.Logger;
+
+import Processes.ProcessInfo;
+import Processes.RunningProcess;
+import Processes.Monitoring.ActiveRuleTracker;
+import Processes.Monitoring.ProcessExited;
+import Processes.Monitoring.ProcessListener;
+import Processes.Monitoring.ProcessStarted;
+import db.Database;
+
+/**
+ * The {@code LimitEnforcer} class enforces the time limits of the process rules with deadlines
+ * instead of querying the database on every tick.
+ * <p>
+ * When a rule with a time limit becomes active (a matching process starts), its remaining budget is
+ * computed once from the stored total and the time still buffered in the
+ * {@link db.UsageAccumulator}, and the termination is scheduled for the exact instant the budget
+ * runs out. The scheduled termination is cancelled when the last matching process exits and
+ * rescheduled when the limit of the rule changes. Processes of a rule that already ran out of
+ * time are terminated as soon as they are detected, and again on the next tick if they survive.
+ * </p>
+ * <p>
+ * The enforcer must be subscribed to the {@link Processes.Monitoring.ProcessDiffer} after the
+ * {@link ActiveRuleTracker}, so the tracker already reflects an event when the enforcer sees it.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class LimitEnforcer implements ProcessListener {
+    /**
+     * The database providing the time not yet flushed for each rule.
+     */
+    private final Database db;
+
+    /**
+     * The tracker providing the running processes of each rule.
+     */
+    private final ActiveRuleTracker ruleTracker;
+
+    /**
+     * Runs the scheduled terminations.
+     */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "limit-enforcement");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The enforcement state of every rule of the current user, keyed by rule ID.
+     */
+    private final Map<Integer, RuleState> states = new HashMap<>();
+
+    /**
+     * Constructs a {@code LimitEnforcer}.
+     *
+     * @param db          The database providing the buffered rule time.
+     * @param ruleTracker The tracker providing the running processes of each rule.
+     */
+    public LimitEnforcer(Database db, ActiveRuleTracker ruleTracker) {
+        this.db = db;
+        this.ruleTracker = ruleTracker;
+    }
+
+    /**
+     * Replaces the rules being enforced and brings the scheduled terminations in line with them:
+     * removed rules are cancelled, rules whose limit changed are rescheduled, newly active rules are
+     * scheduled and rules that ran out of time but still have running processes are terminated again.
+     *
+     * @param rules The rules of the current user, with their stored total time and time limit.
+     */
+    public synchronized void setRules(List<ProcessInfo> rules) {
+        Set<Integer> ids = new HashSet<>();
+        for (ProcessInfo rule : rules) {
+            ids.add(rule.getId());
+            RuleState state = states.get(rule.getId());
+            if (state == null) {
+                states.put(rule.getId(), new RuleState(rule));
+            } else {
+                boolean limitChanged = state.rule.getTime_limit() != rule.getTime_limit();
+                state.rule = rule;
+                if (limitChanged) {
+                    cancel(state);
+                }
+            }
+        }
+        states.entrySet().removeIf(entry -> {
+            if (!ids.contains(entry.getKey())) {
+                cancel(entry.getValue());
+                return true;
+            }
+            return false;
+        });
+
+        for (ProcessInfo rule : ruleTracker.getActiveRules()) {
+            RuleState state = states.get(rule.getId());
+            if (state == null) {
+                continue;
+            }
+            if (state.expired) {
+                terminate(state);
+            } else if (state.deadline == null) {
+                schedule(state);
+            }
+        }
+        for (RuleState state : states.values()) {
+            if ((state.deadline != null || state.expired) && ruleTracker.getProcesses(state.rule).isEmpty()) {
+                cancel(state);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onProcessStarted(ProcessStarted event) {
+        for (ProcessInfo rule : ruleTracker.getRules(event.getProcess())) {
+            RuleState state = states.get(rule.getId());
+            if (state == null) {
+                continue;
+            }
+            if (state.expired) {
+                terminate(state);
+            } else if (state.deadline == null) {
+                schedule(state);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onProcessExited(ProcessExited event) {
+        for (RuleState state : states.values()) {
+            if ((state.deadline != null || state.expired) && ruleTracker.getProcesses(state.rule).isEmpty()) {
+                cancel(state);
+            }
+        }
+    }
+
+    /**
+     * Schedules the termination of a rule's processes for the instant its budget runs out.
+     */
+    private void schedule(RuleState state) {
+        int limit = state.rule.getTime_limit();
+        if (limit <= 0) {
+            return;
+        }
+        long used = state.rule.getTotal_time() + db.usageAccumulator.getPendingRuleTime(state.rule.getId());
+        long remainingMillis = Math.max(0, TimeUnit.SECONDS.toMillis(limit - used));
+        state.deadline = executor.schedule(() -> expire(state), remainingMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called when the budget of a rule runs out.
+     */
+    private synchronized void expire(RuleState state) {
+        if (states.get(state.rule.getId()) != state || state.deadline == null) {
+            return;
+        }
+        state.deadline = null;
+        state.expired = true;
+        terminate(state);
+    }
+
+    /**
+     * Terminates the running processes of a rule that ran out of time.
+     */
+    private void terminate(RuleState state) {
+        List<RunningProcess> processes = ruleTracker.getProcesses(state.rule);
+        if (!processes.isEmpty()) {
+            ProcessManager.terminateProcesses(state.rule.getProcess_name(), processes);
+        }
+    }
+
+    /**
+     * Cancels the scheduled termination of a rule, so it is computed again the next time the rule
+     * becomes active.
+     */
+    private void cancel(RuleState state) {
+        if (state.deadline != null) {
+            state.deadline.cancel(false);
+            state.deadline = null;
+        }
+        state.expired = false;
+    }
+
+    /**
+     * Cancels every scheduled termination and stops the enforcement thread.
+     */
+    public synchronized void shutdown() {
+        for (RuleState state : states.values()) {
+            cancel(state);
+        }
+        executor.shutdownNow();
+        Logger.info("Limit enforcement stopped");
+    }
+
+    /**
+     * The enforcement state of a single rule.
+     */
+    private static final class RuleState {
+        ProcessInfo rule;
+
+        /**
+         * The scheduled termination, or {@code null} if none is pending.
+         */
+        ScheduledFuture<?> deadline;
+
+        /**
+         * Whether the rule ran out of time while its processes were running.
+         */
+        boolean expired = false;
+
+        RuleState(ProcessInfo rule) {
+            this.rule = rule;
+        }
+    }
+}
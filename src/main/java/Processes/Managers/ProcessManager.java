@@ -1,17 +1,27 @@
 package Processes.Managers;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.tinylog.Logger;
 
-import Processes.ProcessInfo;
+import Processes.ProcessSnapshot;
+import Processes.RunningProcess;
+import Processes.Monitoring.ElapsedTimeTracker;
+import Processes.Monitoring.ProcessExited;
+import Processes.Monitoring.ProcessListener;
+import Processes.Monitoring.ProcessStarted;
+import Processes.Sources.ProcessSource;
 import db.Database;
+import db.UsageAccumulator;
 
-public class ProcessManager {
+public class ProcessManager implements ProcessListener {
     private final Database db;
 
     
@@ -25,77 +35,118 @@ public class ProcessManager {
             "AppVShNotify.exe", "AppVClient.exe", "Image", "Secure", "Registry", "Memory"
     );
 
+    /**
+     * How often the usage of the running processes is tracked, in seconds. The time credited is
+     * the elapsed time actually measured between two tracking rounds.
+     */
+    public static final int USAGE_TRACKING_INTERVAL_SECONDS = 6;
+
+    /**
+     * The source used to enumerate running processes.
+     */
+    private static volatile ProcessSource source = ProcessSource.defaultSource();
+
+    /**
+     * Terminates processes by PID when a time limit is reached.
+     */
+    private static final TerminationService terminationService = new TerminationService();
+
+    /**
+     * The running instances of every trackable process, maintained from start and exit events.
+     */
+    private final Map<String, Instances> runningProcesses = new ConcurrentHashMap<>();
+
+    /**
+     * Measures the time elapsed since every (user, process name ID) was last tracked. Gaps longer than
+     * two tracking intervals (e.g. after a suspend) are capped.
+     */
+    private final ElapsedTimeTracker<Long> usageClock =
+            new ElapsedTimeTracker<>(TimeUnit.SECONDS.toMillis(USAGE_TRACKING_INTERVAL_SECONDS),
+                    TimeUnit.SECONDS.toMillis(2L * USAGE_TRACKING_INTERVAL_SECONDS));
+
     public ProcessManager(Database db) {
         this.db = db;
     }
     /**
-     * Tracks all currently running user processes for the specified user.
+     * Captures the list of currently running processes once, so it can be shared by every
+     * check performed during a monitoring tick.
+     *
+     * @return A {@link ProcessSnapshot} of the running processes.
+     */
+    public static ProcessSnapshot captureSnapshot() {
+        return source.scan();
+    }
+
+    /**
+     * Replaces the {@link ProcessSource} used to enumerate running processes.
+     *
+     * @param processSource The new process source.
+     */
+    public static void setProcessSource(ProcessSource processSource) {
+        source = processSource;
+    }
+
+    /**
+     * Tracks all running user processes for the specified user.
+     * Each distinct process name is tracked once, regardless of how many instances are running,
+     * and its usage record is created by the batched upsert of the next flush.
+     * The time credited is the elapsed time since the process was last tracked, measured with the
+     * monotonic clock; it is buffered in the {@link db.UsageAccumulator} and written in batches.
      *
      * @param current_user The ID of the user for whom processes are being tracked.
      */
     public void trackAllProcesses(int current_user) {
-        try {
-            BufferedReader prs = getRunningProcesses();
-            String line;
-            while ((line = prs.readLine()) != null) {
-                String[] parts = line.split(" ");
-                String processName = parts[0];
-
-                if (WINDOWS_SYSTEM_PROCESSES.contains(processName) || !processName.contains(".exe")) {
-                    continue;
-                }
-                ProcessInfo pr = new ProcessInfo(0, current_user, processName, 0);
-                if (!db.usageTrackingRepository.isUsageTracked(pr)) {
-                    db.usageTrackingRepository.addUsageTime(pr);
-                    db.usageTrackingRepository.updateUsageTime(pr);
-                    Logger.info("Tracking new process: " + processName);
-                } else {
-                    //System.out.println("Already Tracking");
-                    db.usageTrackingRepository.updateUsageTime(pr);
-                    //Logger.info("Updating process time: " + processName);
-                }
+        long now = System.nanoTime();
+        usageClock.beginRound();
+        for (Map.Entry<String, Instances> entry : runningProcesses.entrySet()) {
+            String processName = entry.getKey();
+            // Keyed by user and interned name ID; the flush upserts the usage record, so a new
+            // process needs no lookup here.
+            long key = UsageAccumulator.key(current_user, db.processNames.intern(processName));
+            long seconds = usageClock.credit(key, now, entry.getValue().since);
+            if (seconds > 0) {
+                db.usageAccumulator.add(current_user, processName, seconds);
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
+        usageClock.endRound();
+    }
+
+    @Override
+    public void onProcessStarted(ProcessStarted event) {
+        String processName = event.getProcess().getName();
+        if (isTrackable(processName)) {
+            runningProcesses.merge(processName, new Instances(1, event.getProcess().getStartInstant()),
+                    (running, started) -> new Instances(running.count + 1, running.since));
+        }
+    }
+
+    @Override
+    public void onProcessExited(ProcessExited event) {
+        runningProcesses.computeIfPresent(event.getProcess().getName(),
+                (name, running) -> running.count > 1 ? new Instances(running.count - 1, running.since) : null);
     }
 
     /**
-     * Returns a BufferedReader for the list of currently running processes.
+     * Checks if a process should have its usage tracked.
      *
-     * @return A BufferedReader for the running processes output.
+     * @param processName The image name of the process.
+     * @return {@code false} for Windows system processes and non-executables.
      */
-    public static BufferedReader getRunningProcesses() {
-        try {
-            Process process = Runtime.getRuntime().exec("tasklist");
-            return new BufferedReader(new InputStreamReader(process.getInputStream()));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    private static boolean isTrackable(String processName) {
+        return !WINDOWS_SYSTEM_PROCESSES.contains(processName) && processName.contains(".exe");
     }
 
-
     /**
      * Returns a list of running processes whose names match or contain the given name.
      *
-     * @param pname The process name to search for.
+     * @param snapshot The process snapshot captured for the current tick.
+     * @param pname    The process name to search for.
      * @return A list of matching process names.
      */
-    public static ArrayList<String> getRunningProcessesByName(String pname) {
+    public static ArrayList<String> getRunningProcessesByName(ProcessSnapshot snapshot, String pname) {
         ArrayList<String> processes = new ArrayList<>();
-        try {
-            BufferedReader buffer = getRunningProcesses();
-
-            String line;
-
-            while ((line = buffer.readLine()) != null) {
-                if (line.toLowerCase().startsWith(pname.toLowerCase()) || line.toLowerCase().contains(pname.toLowerCase())) {
-                    processes.add(line.split(" ")[0]);
-                }
-            }
-
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        for (RunningProcess process : snapshot.getByName(pname)) {
+            processes.add(process.getName());
         }
         return processes;
     }
@@ -103,49 +154,54 @@ public class ProcessManager {
     /**
      * Checks if a process with the given name is currently running.
      *
-     * @param pname The process name to check.
+     * @param snapshot The process snapshot captured for the current tick.
+     * @param pname    The process name to check.
      * @return {@code true} if the process is running, {@code false} otherwise.
      */
-    public static boolean isProcessRunning(String pname) {
-        try {
-            BufferedReader buffer = getRunningProcesses();
-
-            String line;
+    public static boolean isProcessRunning(ProcessSnapshot snapshot, String pname) {
+        return snapshot.isRunning(pname);
+    }
 
-            while ((line = buffer.readLine()) != null) {
-                if (line.toLowerCase().startsWith(pname.toLowerCase()) || line.toLowerCase().contains(pname.toLowerCase())) {
-                    return true;
-                }
+    /**
+     * Terminates the given processes by PID and logs the outcome once their exit is confirmed.
+     *
+     * @param pname     The rule name the processes matched, used for logging.
+     * @param processes The processes to terminate, as seen in the current snapshot.
+     * @return A future completed with the outcome of the termination round.
+     */
+    public static CompletableFuture<TerminationService.Result> terminateProcesses(String pname, List<RunningProcess> processes) {
+        return terminationService.terminate(processes).whenComplete((result, e) -> {
+            if (e != null) {
+                Logger.error("Error terminating " + pname + ": " + e.getMessage());
+            } else if (result.getFailed().isEmpty()) {
+                Logger.info("Process: " + pname + " terminated (" + result.getTerminated() + ")");
+            } else {
+                Logger.warn("Process: " + pname + " terminated (" + result.getTerminated() + "), still running: " + result.getFailed());
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-
-        return false;
+        });
     }
+
     /**
      * Terminates all running processes that match the given name.
      *
-     * @param pname The process name to terminate.
+     * @param snapshot The process snapshot captured for the current tick.
+     * @param pname    The process name to terminate.
      */
-    public static void terminateProcess(String pname) {
-        try {
-            ArrayList<String> processes = getRunningProcessesByName(pname);
+    public static void terminateProcess(ProcessSnapshot snapshot, String pname) {
+        terminateProcesses(pname, snapshot.getByName(pname));
+    }
 
-            for (String process : processes) {
-                Process prs = Runtime.getRuntime().exec("taskkill /F /IM " + process);
-                prs.waitFor();
-            }
-            /*
-            Process process = Runtime.getRuntime().exec("taskkill /F /IM " + pname);
-            process.waitFor();
-               */
-            Logger.info("Process: " + pname + " terminated");
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    /**
+     * The running instances of a process name and when the first of them started, {@code null}
+     * if the source does not report it.
+     */
+    private static final class Instances {
+        final int count;
+        final Instant since;
+
+        Instances(int count, Instant since) {
+            this.count = count;
+            this.since = since;
         }
     }
-
 }
@@ -0,0 +1,153 @@
+package Processes.Managers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.tinylog.Logger;
+
+import Processes.RunningProcess;
+
+/**
+ * The {@code TerminationService} class terminates processes by PID through {@link ProcessHandle},
+ * without spawning a {@code taskkill} child process per match.
+ * <p>
+ * All processes of a request are signalled at once; a process that has not exited after the grace
+ * period is destroyed forcibly. Exits are confirmed through {@link ProcessHandle#onExit()} and the
+ * whole round is bounded by a deadline, so the returned future always completes.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class TerminationService {
+    /**
+     * Time a process is given to exit after a normal termination request.
+     */
+    private final Duration gracePeriod;
+
+    /**
+     * Maximum time to wait for all processes of a request to exit.
+     */
+    private final Duration deadline;
+
+    /**
+     * Constructs a {@code TerminationService} with a 500 ms grace period and a 3 second deadline.
+     */
+    public TerminationService() {
+        this(Duration.ofMillis(500), Duration.ofSeconds(3));
+    }
+
+    /**
+     * Constructs a {@code TerminationService}.
+     *
+     * @param gracePeriod Time a process is given to exit before it is destroyed forcibly.
+     * @param deadline    Maximum time to wait for all processes to exit.
+     */
+    public TerminationService(Duration gracePeriod, Duration deadline) {
+        this.gracePeriod = gracePeriod;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Terminates the given processes concurrently.
+     *
+     * @param processes The processes to terminate, as seen in the current snapshot.
+     * @return A future completed with the outcome once every process exited or the deadline passed.
+     */
+    public CompletableFuture<Result> terminate(List<RunningProcess> processes) {
+        List<CompletableFuture<Long>> exits = new ArrayList<>();
+        for (RunningProcess process : processes) {
+            exits.add(terminate(process));
+        }
+        return CompletableFuture.allOf(exits.toArray(new CompletableFuture[0])).thenApply(v -> {
+            Result result = new Result();
+            for (CompletableFuture<Long> exit : exits) {
+                long failedPid = exit.join();
+                if (failedPid < 0) {
+                    result.terminated++;
+                } else {
+                    result.failed.add(failedPid);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Requests the termination of a single process.
+     *
+     * @param process The process to terminate.
+     * @return A future completed with {@code -1} once the process exited, or with its PID if it is
+     *         still running at the deadline.
+     */
+    private CompletableFuture<Long> terminate(RunningProcess process) {
+        Optional<ProcessHandle> found = ProcessHandle.of(process.getPid());
+        if (found.isEmpty() || !isSameProcess(found.get(), process)) {
+            // Already gone, or the PID now belongs to another process.
+            return CompletableFuture.completedFuture(-1L);
+        }
+        ProcessHandle handle = found.get();
+        if (!handle.destroy() && !handle.destroyForcibly()) {
+            Logger.warn("Unable to terminate " + process);
+            return CompletableFuture.completedFuture(process.getPid());
+        }
+        CompletableFuture<Long> exit = handle.onExit().thenApply(h -> -1L);
+        CompletableFuture.delayedExecutor(gracePeriod.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (!exit.isDone()) {
+                handle.destroyForcibly();
+            }
+        });
+        return exit.completeOnTimeout(process.getPid(), deadline.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks that a live handle still refers to the process from the snapshot, guarding against
+     * PID reuse. Start instants from different sources are compared with a one second tolerance.
+     */
+    private static boolean isSameProcess(ProcessHandle handle, RunningProcess process) {
+        Instant expected = process.getStartInstant();
+        Instant actual = handle.info().startInstant().orElse(null);
+        if (expected == null || actual == null) {
+            return true;
+        }
+        return Math.abs(Duration.between(expected, actual).toMillis()) < 1000;
+    }
+
+    /**
+     * The outcome of a termination request.
+     */
+    public static class Result {
+        /**
+         * Number of processes confirmed to have exited.
+         */
+        private int terminated = 0;
+
+        /**
+         * PIDs of the processes still running when the deadline passed.
+         */
+        private final List<Long> failed = new ArrayList<>();
+
+        /**
+         * Gets the number of processes confirmed to have exited.
+         *
+         * @return The number of terminated processes.
+         */
+        public int getTerminated() {
+            return terminated;
+        }
+
+        /**
+         * Gets the PIDs of the processes still running when the deadline passed.
+         *
+         * @return The PIDs that could not be terminated.
+         */
+        public List<Long> getFailed() {
+            return failed;
+        }
+    }
+}
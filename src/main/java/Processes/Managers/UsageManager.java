@@ -32,8 +32,7 @@ public class UsageManager {
         int currentYear = calendar.get(Calendar.YEAR);
         String date = String.format("%04d-%02d-%02d", currentYear, currentMonth, currentDay);
 
-        var dailyUsages = db.dailyUsageRepository.getDailyUsage(user);
-        boolean hasToday = dailyUsages.stream().anyMatch(info -> info.getDate().toString().equals(date));
+        boolean hasToday = db.dailyUsageRepository.hasDailyUsage(user, date);
         System.out.println(hasToday);
         if (!hasToday) {
             int svchostTotal = 0;
@@ -44,8 +43,9 @@ public class UsageManager {
                     break;
                 }
             }
-            int previousTotal = dailyUsages.stream().mapToInt(info -> info.getTimeSpent()).sum();
-            int todayTime = svchostTotal - previousTotal;
+            // Includes the days already compacted into monthly totals.
+            long previousTotal = db.dailyUsageRepository.getTotalUsageSeconds(user);
+            int todayTime = (int) (svchostTotal - previousTotal);
             if (todayTime < 0) {
                 todayTime = 0;
             }
@@ -0,0 +1,118 @@
+package Processes.Monitoring;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import Processes.ProcessInfo;
+import Processes.ProcessSnapshot;
+import Processes.RunningProcess;
+
+/**
+ * The {@code ActiveRuleTracker} class keeps track of which configured process rules currently
+ * have at least one matching running process.
+ * <p>
+ * It is updated from {@link ProcessStarted} and {@link ProcessExited} events, so the enforcement
+ * loop only has to visit the rules whose processes are actually running instead of matching every
+ * rule against every process on each tick. Rules are compiled into a {@link RuleMatcher}, which is
+ * only rebuilt (and the full snapshot only classified again) when the rule list itself changes.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class ActiveRuleTracker implements ProcessListener {
+    /**
+     * The rules currently being enforced.
+     */
+    private List<ProcessInfo> rules = new ArrayList<>();
+
+    /**
+     * The automaton compiled from {@link #rules}.
+     */
+    private RuleMatcher matcher = new RuleMatcher(new ArrayList<>());
+
+    /**
+     * For every rule ID, the running processes that match it, keyed by PID.
+     */
+    private final Map<Integer, Map<Long, RunningProcess>> matches = new HashMap<>();
+
+    /**
+     * Replaces the rules being tracked. If the rules differ from the current ones, the matches
+     * are recomputed from the given snapshot.
+     *
+     * @param newRules The rules of the current user.
+     * @param snapshot The snapshot captured for the current tick.
+     */
+    public synchronized void setRules(List<ProcessInfo> newRules, ProcessSnapshot snapshot) {
+        if (newRules == rules) {
+            return;
+        }
+        rules = newRules;
+        if (matcher.hasSameRules(newRules)) {
+            return;
+        }
+        matcher = new RuleMatcher(newRules);
+        matches.clear();
+        for (Map.Entry<Integer, List<RunningProcess>> entry : matcher.classify(snapshot).entrySet()) {
+            Map<Long, RunningProcess> running = matches.computeIfAbsent(entry.getKey(), k -> new HashMap<>());
+            for (RunningProcess process : entry.getValue()) {
+                running.put(process.getPid(), process);
+            }
+        }
+    }
+
+    /**
+     * Gets the rules that have at least one matching running process.
+     *
+     * @return A list of active rules.
+     */
+    public synchronized List<ProcessInfo> getActiveRules() {
+        ArrayList<ProcessInfo> active = new ArrayList<>();
+        for (ProcessInfo rule : rules) {
+            Map<Long, RunningProcess> running = matches.get(rule.getId());
+            if (running != null && !running.isEmpty()) {
+                active.add(rule);
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Gets the running processes that match the given rule.
+     *
+     * @param rule The rule.
+     * @return A list of matching processes, empty if none are running.
+     */
+    public synchronized List<RunningProcess> getProcesses(ProcessInfo rule) {
+        Map<Long, RunningProcess> running = matches.get(rule.getId());
+        return running == null ? new ArrayList<>() : new ArrayList<>(running.values());
+    }
+
+    /**
+     * Gets the rules matched by a process.
+     *
+     * @param process The process.
+     * @return The matching rules, empty if none match.
+     */
+    public synchronized List<ProcessInfo> getRules(RunningProcess process) {
+        return matcher.match(process.getName());
+    }
+
+    @Override
+    public synchronized void onProcessStarted(ProcessStarted event) {
+        RunningProcess process = event.getProcess();
+        for (ProcessInfo rule : matcher.match(process.getName())) {
+            matches.computeIfAbsent(rule.getId(), k -> new HashMap<>()).put(process.getPid(), process);
+        }
+    }
+
+    @Override
+    public synchronized void onProcessExited(ProcessExited event) {
+        RunningProcess process = event.getProcess();
+        for (Map<Long, RunningProcess> running : matches.values()) {
+            running.remove(process.getPid());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package Processes.Monitoring;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code ElapsedTimeTracker} class measures how long each key (a process name or a rule) has
+ * been observed, using the monotonic {@link System#nanoTime()} clock instead of assuming that
+ * every tick lasted exactly one period.
+ * <p>
+ * Each round, {@link #credit(Object, long, Instant)} returns the whole seconds elapsed since the
+ * key was last seen and carries the sub-second remainder over to the next round, so nothing is
+ * lost to rounding. A key seen for the first time is credited the time since its process started,
+ * up to one interval, so the interval in which it appeared is not lost; a key missing from a round
+ * is forgotten by {@link #endRound()}. Gaps longer than the configured maximum (for example after the
+ * machine was suspended) are capped, so a stalled tick never credits hours of usage.
+ * </p>
+ *
+ * @param <K> The type of the tracked keys.
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class ElapsedTimeTracker<K> {
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Longest time credited to a key seen for the first time, in nanoseconds.
+     */
+    private final long intervalNanos;
+
+    /**
+     * Longest gap between two observations of a key that is credited, in nanoseconds.
+     */
+    private final long maxGapNanos;
+
+    /**
+     * The last observation of every key seen in the previous or current round.
+     */
+    private final Map<K, Observation> observations = new HashMap<>();
+
+    /**
+     * Counter of the current round, used to find keys that were not seen.
+     */
+    private long round = 0;
+
+    /**
+     * Constructs an {@code ElapsedTimeTracker}.
+     *
+     * @param intervalMillis The interval between two rounds, the longest time credited to a key
+     *                       seen for the first time.
+     * @param maxGapMillis   Longest gap between two observations of a key that is credited.
+     */
+    public ElapsedTimeTracker(long intervalMillis, long maxGapMillis) {
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.maxGapNanos = TimeUnit.MILLISECONDS.toNanos(maxGapMillis);
+    }
+
+    /**
+     * Starts a new round of observations.
+     */
+    public synchronized void beginRound() {
+        round++;
+    }
+
+    /**
+     * Records that a key was seen and returns the time to credit to it.
+     *
+     * @param key       The observed key.
+     * @param nowNanos  The {@link System#nanoTime()} value of this round.
+     * @param startedAt When the process behind the key started, or {@code null} if unknown; only
+     *                  used for a new key.
+     * @return The whole seconds elapsed since the key was last seen; for a new key, the seconds
+     *         since it started, at most one interval, or {@code 0} if its start is unknown.
+     */
+    public synchronized long credit(K key, long nowNanos, Instant startedAt) {
+        Observation observation = observations.get(key);
+        if (observation == null) {
+            long sinceStart = startedAt == null ? 0 : Duration.between(startedAt, Instant.now()).toNanos();
+            // Credit the part of the last interval the process was already running, as if it had
+            // been seen when it started.
+            observation = new Observation(nowNanos - Math.min(Math.max(sinceStart, 0), intervalNanos), round);
+            observations.put(key, observation);
+        }
+        long elapsed = Math.min(Math.max(nowNanos - observation.lastSeenNanos, 0), maxGapNanos) + observation.remainderNanos;
+        observation.lastSeenNanos = nowNanos;
+        observation.round = round;
+        observation.remainderNanos = elapsed % NANOS_PER_SECOND;
+        return elapsed / NANOS_PER_SECOND;
+    }
+
+    /**
+     * Ends the current round and forgets the keys that were not seen in it.
+     */
+    public synchronized void endRound() {
+        Iterator<Observation> it = observations.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().round != round) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * The last observation of a key.
+     */
+    private static final class Observation {
+        long lastSeenNanos;
+        long remainderNanos = 0;
+        long round;
+
+        Observation(long lastSeenNanos, long round) {
+            this.lastSeenNanos = lastSeenNanos;
+            this.round = round;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package Processes.Monitoring;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.tinylog.Logger;
+
+/**
+ * The {@code MonitoringScheduler} class runs the monitoring pipeline (snapshot, event evaluation,
+ * enforcement, usage tracking and UI publishing) as ordered stages of a single periodic tick on one
+ * scheduler thread.
+ * <p>
+ * {@link #start()} and {@link #stop(Duration)} are idempotent, so calling {@code start()} again while the
+ * pipeline is running never creates a second poller. Each tick is measured against its slot: if a
+ * tick ends after the next one was due, the overrun is recorded and logged.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class MonitoringScheduler {
+    /**
+     * The tick period in milliseconds.
+     */
+    private final long periodMillis;
+
+    /**
+     * The stages run on every tick, in registration order.
+     */
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+
+    /**
+     * The executor running the ticks, or {@code null} while stopped.
+     */
+    private ScheduledExecutorService executor;
+
+    /**
+     * The scheduled periodic task, or {@code null} while stopped.
+     */
+    private ScheduledFuture<?> task;
+
+    /**
+     * The thread running the ticks, so {@link #stop(Duration)} never waits for itself.
+     */
+    private volatile Thread tickThread;
+
+    /**
+     * Number of ticks run since the scheduler was started.
+     */
+    private long ticks = 0;
+
+    /**
+     * {@link System#nanoTime()} at which the first tick was due.
+     */
+    private long firstTickNanos;
+
+    /**
+     * Overrun of the most recent tick in nanoseconds, {@code 0} if it finished within its slot.
+     */
+    private volatile long lastOverrunNanos = 0;
+
+    /**
+     * Largest overrun observed in nanoseconds.
+     */
+    private volatile long maxOverrunNanos = 0;
+
+    /**
+     * Number of ticks that finished after their slot ended.
+     */
+    private volatile long overrunTicks = 0;
+
+    /**
+     * Constructs a {@code MonitoringScheduler}.
+     *
+     * @param periodMillis The tick period in milliseconds.
+     */
+    public MonitoringScheduler(long periodMillis) {
+        this.periodMillis = periodMillis;
+    }
+
+    /**
+     * Adds a stage to the pipeline.
+     *
+     * @param name       The stage name, used in log messages.
+     * @param everyTicks Run the stage on every n-th tick (1 runs it on every tick).
+     * @param action     The work performed by the stage.
+     * @return This scheduler, for chaining.
+     */
+    public MonitoringScheduler addStage(String name, int everyTicks, Runnable action) {
+        stages.add(new Stage(name, everyTicks, action));
+        return this;
+    }
+
+    /**
+     * Starts the pipeline if it is not already running.
+     *
+     * @return {@code true} if the pipeline was started, {@code false} if it was already running.
+     */
+    public synchronized boolean start() {
+        if (task != null) {
+            return false;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "monitoring");
+            thread.setDaemon(true);
+            tickThread = thread;
+            return thread;
+        });
+        ticks = 0;
+        firstTickNanos = System.nanoTime();
+        task = executor.scheduleAtFixedRate(this::tick, 0, periodMillis, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * Stops the pipeline if it is running, and waits for a tick in progress to finish so that no
+     * stage runs after this method returns (unless the wait times out).
+     *
+     * @param timeout How long to wait for the tick in progress.
+     * @return {@code true} if no tick is running any more, {@code false} if the wait timed out.
+     */
+    public boolean stop(Duration timeout) {
+        ScheduledExecutorService stopped;
+        synchronized (this) {
+            if (task == null) {
+                return true;
+            }
+            task.cancel(false);
+            executor.shutdown();
+            stopped = executor;
+            task = null;
+            executor = null;
+        }
+        if (Thread.currentThread() == tickThread) {
+            return false; // called by a stage; the tick in progress is this one
+        }
+        try {
+            if (stopped.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+            Logger.warn("Monitoring tick still running " + timeout.toMillis() + " ms after stop");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the pipeline is running.
+     *
+     * @return {@code true} if the pipeline is running.
+     */
+    public synchronized boolean isRunning() {
+        return task != null;
+    }
+
+    /**
+     * Gets the overrun of the most recent tick.
+     *
+     * @return The overrun in milliseconds, {@code 0} if the tick finished within its slot.
+     */
+    public long getLastOverrunMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastOverrunNanos);
+    }
+
+    /**
+     * Gets the largest overrun observed since the application started.
+     *
+     * @return The largest overrun in milliseconds.
+     */
+    public long getMaxOverrunMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxOverrunNanos);
+    }
+
+    /**
+     * Gets the number of ticks that finished after their slot ended.
+     *
+     * @return The number of overrunning ticks.
+     */
+    public long getOverrunTicks() {
+        return overrunTicks;
+    }
+
+    /**
+     * Runs every stage due on this tick and records how far the tick overran its slot.
+     */
+    private void tick() {
+        long tick = ticks++;
+        for (Stage stage : stages) {
+            if (tick % stage.everyTicks != 0) {
+                continue;
+            }
+            try {
+                stage.action.run();
+            } catch (Exception e) {
+                Logger.warn("Error during monitoring stage " + stage.name + ": " + e.getMessage());
+            } catch (Throwable e) {
+                // An error escaping the tick would silently cancel the periodic task.
+                Logger.error("Error during monitoring stage " + stage.name + ": " + e);
+            }
+        }
+        long slotEnd = firstTickNanos + (tick + 1) * TimeUnit.MILLISECONDS.toNanos(periodMillis);
+        long overrun = System.nanoTime() - slotEnd;
+        if (overrun > 0) {
+            lastOverrunNanos = overrun;
+            maxOverrunNanos = Math.max(maxOverrunNanos, overrun);
+            overrunTicks++;
+            Logger.warn("Monitoring tick " + tick + " overran its slot by " + TimeUnit.NANOSECONDS.toMillis(overrun) + " ms");
+        } else {
+            lastOverrunNanos = 0;
+        }
+    }
+
+    /**
+     * A named step of the monitoring pipeline.
+     */
+    private static final class Stage {
+        final String name;
+        final int everyTicks;
+        final Runnable action;
+
+        Stage(String name, int everyTicks, Runnable action) {
+            this.name = name;
+            this.everyTicks = Math.max(1, everyTicks);
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package Processes.Monitoring;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.tinylog.Logger;
+
+import Processes.ProcessSnapshot;
+import Processes.RunningProcess;
+
+/**
+ * The {@code ProcessDiffer} class compares consecutive {@link ProcessSnapshot}s and notifies its
+ * subscribers about the processes that started or exited in between.
+ * <p>
+ * Processes are identified by their PID together with their start instant, so a PID reused by a
+ * new process is reported as an exit followed by a start. When a source does not report start
+ * instants, the image name is compared instead.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class ProcessDiffer {
+    /**
+     * Components notified about started and exited processes.
+     */
+    private final List<ProcessListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The processes of the previous snapshot, keyed by PID.
+     */
+    private Map<Long, RunningProcess> previous = new HashMap<>();
+
+    /**
+     * Registers a listener for process start and exit events.
+     *
+     * @param listener The listener to add.
+     */
+    public void subscribe(ProcessListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void unsubscribe(ProcessListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Compares the given snapshot with the previous one and emits a {@link ProcessStarted} or
+     * {@link ProcessExited} event for every difference.
+     *
+     * @param snapshot The snapshot captured for the current tick.
+     * @return The number of events emitted.
+     */
+    public synchronized int update(ProcessSnapshot snapshot) {
+        Map<Long, RunningProcess> current = new HashMap<>(snapshot.size() * 2);
+        int changes = 0;
+        for (RunningProcess process : snapshot.getProcesses()) {
+            current.put(process.getPid(), process);
+            RunningProcess before = previous.remove(process.getPid());
+            if (before != null && isSameProcess(before, process)) {
+                continue;
+            }
+            if (before != null) {
+                fireExited(new ProcessExited(before));
+                changes++;
+            }
+            fireStarted(new ProcessStarted(process));
+            changes++;
+        }
+        for (RunningProcess gone : previous.values()) {
+            fireExited(new ProcessExited(gone));
+            changes++;
+        }
+        previous = current;
+        return changes;
+    }
+
+    /**
+     * Checks if two entries with the same PID describe the same process.
+     *
+     * @param a The entry from the previous snapshot.
+     * @param b The entry from the current snapshot.
+     * @return {@code true} if both entries are the same process.
+     */
+    private static boolean isSameProcess(RunningProcess a, RunningProcess b) {
+        if (a == b) {
+            return true;
+        }
+        if (a.getStartInstant() != null && b.getStartInstant() != null) {
+            return a.getStartInstant().equals(b.getStartInstant());
+        }
+        return Objects.equals(a.getName(), b.getName());
+    }
+
+    private void fireStarted(ProcessStarted event) {
+        for (ProcessListener listener : listeners) {
+            try {
+                listener.onProcessStarted(event);
+            } catch (RuntimeException e) {
+                Logger.error("Process listener failed on start of " + event.getProcess() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void fireExited(ProcessExited event) {
+        for (ProcessListener listener : listeners) {
+            try {
+                listener.onProcessExited(event);
+            } catch (RuntimeException e) {
+                Logger.error("Process listener failed on exit of " + event.getProcess() + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package Processes.Monitoring;
+
+import Processes.RunningProcess;
+
+/**
+ * The {@code ProcessExited} event is emitted by the {@link ProcessDiffer} when a process from the
+ * previous snapshot is no longer present.
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class ProcessExited {
+    /**
+     * The process that exited, as it was last seen.
+     */
+    private final RunningProcess process;
+
+    /**
+     * Constructs a {@code ProcessExited} event.
+     *
+     * @param process The process that exited.
+     */
+    public ProcessExited(RunningProcess process) {
+        this.process = process;
+    }
+
+    /**
+     * Gets the process that exited, as it was last seen.
+     *
+     * @return The exited process.
+     */
+    public RunningProcess getProcess() {
+        return process;
+    }
+}
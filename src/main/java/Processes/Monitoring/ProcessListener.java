@@ -0,0 +1,31 @@
+package Processes.Monitoring;
+
+/**
+ * The {@code ProcessListener} interface is implemented by components that react to processes
+ * starting or exiting, as detected by the {@link ProcessDiffer}.
+ * <p>
+ * Both methods have empty default implementations, so a listener only overrides what it needs.
+ * Listeners are called on the monitoring thread and should not block.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public interface ProcessListener {
+
+    /**
+     * Called when a process has started since the previous snapshot.
+     *
+     * @param event The start event.
+     */
+    default void onProcessStarted(ProcessStarted event) {
+    }
+
+    /**
+     * Called when a process has exited since the previous snapshot.
+     *
+     * @param event The exit event.
+     */
+    default void onProcessExited(ProcessExited event) {
+    }
+}
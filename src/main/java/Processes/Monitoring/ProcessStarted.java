@@ -0,0 +1,35 @@
+package Processes.Monitoring;
+
+import Processes.RunningProcess;
+
+/**
+ * The {@code ProcessStarted} event is emitted by the {@link ProcessDiffer} when a process appears
+ * that was not present in the previous snapshot.
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class ProcessStarted {
+    /**
+     * The process that was started.
+     */
+    private final RunningProcess process;
+
+    /**
+     * Constructs a {@code ProcessStarted} event.
+     *
+     * @param process The process that was started.
+     */
+    public ProcessStarted(RunningProcess process) {
+        this.process = process;
+    }
+
+    /**
+     * Gets the process that was started.
+     *
+     * @return The started process.
+     */
+    public RunningProcess getProcess() {
+        return process;
+    }
+}
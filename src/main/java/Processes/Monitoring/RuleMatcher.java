@@ -0,0 +1,256 @@
+package Processes.Monitoring;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import Processes.ProcessInfo;
+import Processes.ProcessSnapshot;
+import Processes.RunningProcess;
+
+/**
+ * The {@code RuleMatcher} class compiles the process names of a user's rules into a single
+ * Aho-Corasick automaton, so a process name can be checked against every rule in one pass.
+ * <p>
+ * Matching keeps the existing rule semantics: a process matches a rule when its lowercased name
+ * contains the lowercased rule name. The automaton is built once per rule set; callers should
+ * only create a new matcher when the rules change (see {@link #hasSameRules(List)}).
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class RuleMatcher {
+    /**
+     * The rules compiled into this matcher, in the order they were given.
+     */
+    private final List<ProcessInfo> rules;
+
+    /**
+     * Maps ASCII characters to their alphabet index; {@code 0} is used for characters that do not
+     * appear in any rule.
+     */
+    private final int[] asciiClasses = new int[128];
+
+    /**
+     * Maps non-ASCII characters to their alphabet index.
+     */
+    private final Map<Character, Integer> otherClasses = new HashMap<>();
+
+    /**
+     * Number of alphabet indexes, including the catch-all index {@code 0}.
+     */
+    private final int alphabetSize;
+
+    /**
+     * The deterministic transition table: {@code transitions[state * alphabetSize + class]}.
+     */
+    private final int[] transitions;
+
+    /**
+     * For every state, the indexes of the rules that end in it (including through suffix links).
+     */
+    private final int[][] outputs;
+
+    /**
+     * Per-rule marker used to report each rule once per process name.
+     */
+    private final int[] seenStamp;
+
+    /**
+     * Current marker value written to {@link #seenStamp}.
+     */
+    private int stamp = 0;
+
+    /**
+     * Compiles the given rules into an automaton.
+     *
+     * @param rules The rules to compile.
+     */
+    public RuleMatcher(List<ProcessInfo> rules) {
+        this.rules = List.copyOf(rules);
+        this.seenStamp = new int[this.rules.size()];
+
+        String[] patterns = new String[this.rules.size()];
+        int nextClass = 1;
+        int maxStates = 1;
+        for (int r = 0; r < patterns.length; r++) {
+            patterns[r] = this.rules.get(r).getProcess_name().toLowerCase(Locale.ROOT);
+            maxStates += patterns[r].length();
+            for (int i = 0; i < patterns[r].length(); i++) {
+                char c = patterns[r].charAt(i);
+                if (classOf(c) == 0) {
+                    if (c < 128) {
+                        asciiClasses[c] = nextClass++;
+                    } else {
+                        otherClasses.put(c, nextClass++);
+                    }
+                }
+            }
+        }
+        this.alphabetSize = nextClass;
+
+        // Build the trie; -1 marks a missing edge until the failure links are resolved.
+        int[] table = new int[maxStates * alphabetSize];
+        Arrays.fill(table, -1);
+        ArrayList<ArrayList<Integer>> ends = new ArrayList<>();
+        ends.add(new ArrayList<>());
+        int states = 1;
+        for (int r = 0; r < patterns.length; r++) {
+            int state = 0;
+            for (int i = 0; i < patterns[r].length(); i++) {
+                int index = state * alphabetSize + classOf(patterns[r].charAt(i));
+                if (table[index] == -1) {
+                    table[index] = states++;
+                    ends.add(new ArrayList<>());
+                }
+                state = table[index];
+            }
+            ends.get(state).add(r);
+        }
+
+        // Resolve failure links breadth-first and turn the trie into a full transition table.
+        int[] fail = new int[states];
+        int[][] out = new int[states][];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        out[0] = toArray(ends.get(0), null);
+        for (int c = 0; c < alphabetSize; c++) {
+            int next = table[c];
+            if (next == -1) {
+                table[c] = 0;
+            } else {
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            out[state] = toArray(ends.get(state), out[fail[state]]);
+            for (int c = 0; c < alphabetSize; c++) {
+                int index = state * alphabetSize + c;
+                int next = table[index];
+                if (next == -1) {
+                    table[index] = table[fail[state] * alphabetSize + c];
+                } else {
+                    fail[next] = table[fail[state] * alphabetSize + c];
+                    queue.add(next);
+                }
+            }
+        }
+        this.transitions = Arrays.copyOf(table, states * alphabetSize);
+        this.outputs = out;
+    }
+
+    /**
+     * Gets the rules compiled into this matcher.
+     *
+     * @return An unmodifiable list of rules.
+     */
+    public List<ProcessInfo> getRules() {
+        return rules;
+    }
+
+    /**
+     * Checks if this matcher was compiled from rules with the same IDs and names, in which case it
+     * does not need to be rebuilt.
+     *
+     * @param other The rules to compare with.
+     * @return {@code true} if the rules are equivalent.
+     */
+    public boolean hasSameRules(List<ProcessInfo> other) {
+        if (other.size() != rules.size()) {
+            return false;
+        }
+        for (int i = 0; i < rules.size(); i++) {
+            if (rules.get(i).getId() != other.get(i).getId()
+                    || !rules.get(i).getProcess_name().equals(other.get(i).getProcess_name())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the rules matched by a single process name.
+     *
+     * @param processName The image name of the process.
+     * @return The matching rules, empty if none match.
+     */
+    public synchronized List<ProcessInfo> match(String processName) {
+        ArrayList<ProcessInfo> matched = new ArrayList<>();
+        scan(processName, matched);
+        return matched;
+    }
+
+    /**
+     * Classifies every process of a snapshot in one pass over the process names.
+     *
+     * @param snapshot The snapshot to classify.
+     * @return For every matched rule ID, the processes that match it.
+     */
+    public synchronized Map<Integer, List<RunningProcess>> classify(ProcessSnapshot snapshot) {
+        Map<Integer, List<RunningProcess>> result = new LinkedHashMap<>();
+        ArrayList<ProcessInfo> matched = new ArrayList<>();
+        for (RunningProcess process : snapshot.getProcesses()) {
+            matched.clear();
+            scan(process.getName(), matched);
+            for (ProcessInfo rule : matched) {
+                result.computeIfAbsent(rule.getId(), k -> new ArrayList<>()).add(process);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs the automaton over a name and collects each matching rule once.
+     */
+    private void scan(String name, List<ProcessInfo> matched) {
+        if (rules.isEmpty()) {
+            return;
+        }
+        if (++stamp == 0) {
+            Arrays.fill(seenStamp, 0);
+            stamp = 1;
+        }
+        int state = 0;
+        collect(outputs[0], matched);
+        for (int i = 0; i < name.length(); i++) {
+            state = transitions[state * alphabetSize + classOf(Character.toLowerCase(name.charAt(i)))];
+            collect(outputs[state], matched);
+        }
+    }
+
+    private void collect(int[] ruleIndexes, List<ProcessInfo> matched) {
+        for (int r : ruleIndexes) {
+            if (seenStamp[r] != stamp) {
+                seenStamp[r] = stamp;
+                matched.add(rules.get(r));
+            }
+        }
+    }
+
+    private int classOf(char c) {
+        if (c < 128) {
+            return asciiClasses[c];
+        }
+        Integer index = otherClasses.get(c);
+        return index == null ? 0 : index;
+    }
+
+    private static int[] toArray(List<Integer> own, int[] inherited) {
+        int extra = inherited == null ? 0 : inherited.length;
+        int[] result = new int[own.size() + extra];
+        for (int i = 0; i < own.size(); i++) {
+            result[i] = own.get(i);
+        }
+        if (inherited != null) {
+            System.arraycopy(inherited, 0, result, own.size(), extra);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,117 @@
+package Processes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The {@code ProcessSnapshot} class holds the process table captured once per monitoring tick.
+ * <p>
+ * Processes are indexed by their lowercased image name, so every rule check, usage update and
+ * termination performed during a tick works against the same view of the system instead of
+ * enumerating the running processes again.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class ProcessSnapshot {
+    /**
+     * All processes in the order they were reported by the operating system.
+     */
+    private final List<RunningProcess> processes;
+
+    /**
+     * Processes grouped by their lowercased image name.
+     */
+    private final Map<String, List<RunningProcess>> byName;
+
+    /**
+     * Constructs a {@code ProcessSnapshot} from the given list of processes.
+     *
+     * @param processes The processes that were running when the snapshot was taken.
+     */
+    public ProcessSnapshot(List<RunningProcess> processes) {
+        this.processes = Collections.unmodifiableList(processes);
+        this.byName = new HashMap<>();
+        for (RunningProcess process : processes) {
+            byName.computeIfAbsent(process.getName().toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(process);
+        }
+    }
+
+    /**
+     * Returns a snapshot that contains no processes.
+     *
+     * @return An empty snapshot.
+     */
+    public static ProcessSnapshot empty() {
+        return new ProcessSnapshot(new ArrayList<>());
+    }
+
+    /**
+     * Gets all processes contained in this snapshot.
+     *
+     * @return An unmodifiable list of processes.
+     */
+    public List<RunningProcess> getProcesses() {
+        return processes;
+    }
+
+    /**
+     * Gets the image name of every distinct process in this snapshot, keeping the case
+     * reported by the operating system.
+     *
+     * @return A list of distinct process names.
+     */
+    public List<String> getDistinctNames() {
+        ArrayList<String> names = new ArrayList<>(byName.size());
+        for (List<RunningProcess> group : byName.values()) {
+            names.add(group.getFirst().getName());
+        }
+        return names;
+    }
+
+    /**
+     * Returns the processes whose name matches or contains the given name, ignoring case.
+     * An exact name match is resolved through the index; otherwise the distinct names are scanned.
+     *
+     * @param pname The process name to search for.
+     * @return A list of matching processes, empty if none are running.
+     */
+    public List<RunningProcess> getByName(String pname) {
+        String key = pname.toLowerCase(Locale.ROOT);
+        List<RunningProcess> exact = byName.get(key);
+        if (exact != null) {
+            return exact;
+        }
+        ArrayList<RunningProcess> matches = new ArrayList<>();
+        for (Map.Entry<String, List<RunningProcess>> entry : byName.entrySet()) {
+            if (entry.getKey().contains(key)) {
+                matches.addAll(entry.getValue());
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Checks if a process with the given name was running when the snapshot was taken.
+     *
+     * @param pname The process name to check.
+     * @return {@code true} if the process is running, {@code false} otherwise.
+     */
+    public boolean isRunning(String pname) {
+        return !getByName(pname).isEmpty();
+    }
+
+    /**
+     * Gets the number of processes in this snapshot.
+     *
+     * @return The process count.
+     */
+    public int size() {
+        return processes.size();
+    }
+}
@@ -1,17 +1,25 @@
 package Processes;
 
-import java.util.ArrayList;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 
 import org.tinylog.Logger;
 
 import Events.EventInfo;
 import GUI.UI;
 import Processes.Managers.EventManager;
+import Processes.Managers.LimitEnforcer;
 import Processes.Managers.ProcessManager;
 import Processes.Managers.UsageManager;
+import Processes.Monitoring.ActiveRuleTracker;
+import Processes.Monitoring.ElapsedTimeTracker;
+import Processes.Monitoring.MonitoringScheduler;
+import Processes.Monitoring.ProcessDiffer;
 import db.Database;
+import db.DatabaseMetrics;
+import db.UsageAccumulator;
+import db.UsageMaintenance;
 
 /**
  * The {@code Program} class serves as the core logic and backend for the Parental Control App.
@@ -50,9 +58,14 @@ public class Program {
     public String system_user = System.getProperty("user.name");
 
     /**
-     * Timer for scheduling periodic process and event checks.
+     * Period of the monitoring pipeline in milliseconds.
      */
-    public Timer timer;
+    private static final int MONITORING_PERIOD_MILLIS = 3000;
+
+    /**
+     * Runs the monitoring pipeline every {@link #MONITORING_PERIOD_MILLIS} milliseconds.
+     */
+    public final MonitoringScheduler scheduler = new MonitoringScheduler(MONITORING_PERIOD_MILLIS);
 
     /**
      * The index of the current user (used for database queries).
@@ -64,6 +77,26 @@ public class Program {
      */
     public UserInfo user;
 
+    /**
+     * Detects processes that started or exited between two monitoring ticks.
+     */
+    private final ProcessDiffer processDiffer = new ProcessDiffer();
+
+    /**
+     * Tracks which rules of the current user have matching running processes.
+     */
+    private final ActiveRuleTracker ruleTracker = new ActiveRuleTracker();
+
+    /**
+     * Terminates the processes of a rule at the instant its time limit is reached.
+     */
+    private final LimitEnforcer limitEnforcer = new LimitEnforcer(db, ruleTracker);
+
+    /**
+     * Measures the time elapsed since every active rule was last enforced, so rule time follows
+     * the real duration of the ticks. Gaps longer than two periods are capped.
+     */
+    private final ElapsedTimeTracker<Integer> ruleClock = new ElapsedTimeTracker<>(MONITORING_PERIOD_MILLIS, 2L * MONITORING_PERIOD_MILLIS);
 
 
     
@@ -74,7 +107,7 @@ public class Program {
      * @return user selection status
      */
     public boolean setUser() {
-        ArrayList<UserInfo> u = db.userRepository.getUsers();
+        List<UserInfo> u = db.userRepository.getUsers();
         if(u.size() > 0) {
             user = u.get(0);
             return true;
@@ -95,59 +128,112 @@ public class Program {
     public WebFilter webFilter = new WebFilter();
 
     /**
-     * Constructs a new {@code Program} instance and starts the periodic monitoring timer.
+     * Constructs a new {@code Program} instance and starts the monitoring pipeline.
      */
     public Program() {
-        if (!setUser()) {
-            mainLoop();
-        } else {
-            mainLoop();
-        }
+        processDiffer.subscribe(processManager);
+        processDiffer.subscribe(ruleTracker);
+        processDiffer.subscribe(limitEnforcer);
+        scheduler.addStage("snapshot", 1, this::captureSnapshot)
+                .addStage("events", 1, this::runEvents)
+                .addStage("rule time", 1, this::trackRuleTime)
+                .addStage("usage", ProcessManager.USAGE_TRACKING_INTERVAL_SECONDS * 1000 / MONITORING_PERIOD_MILLIS,
+                        () -> processManager.trackAllProcesses(current_user))
+                .addStage("journal", ProcessManager.USAGE_TRACKING_INTERVAL_SECONDS * 1000 / MONITORING_PERIOD_MILLIS,
+                        db.usageAccumulator::syncJournal)
+                .addStage("flush", UsageAccumulator.FLUSH_INTERVAL_SECONDS * 1000 / MONITORING_PERIOD_MILLIS,
+                        db.usageAccumulator::flush)
+                .addStage("metrics", DatabaseMetrics.SUMMARY_INTERVAL_SECONDS * 1000 / MONITORING_PERIOD_MILLIS,
+                        db::logMetrics)
+                .addStage("maintenance", UsageMaintenance.RUN_INTERVAL_SECONDS * 1000 / MONITORING_PERIOD_MILLIS,
+                        db.usageMaintenance::runIfIdle)
+                .addStage("ui", 1, this::publishToUI);
+        setUser();
+        mainLoop();
     }
+
     /**
-     * Starts the periodic monitoring timer
-    */
+     * Starts the monitoring pipeline. Calling this method while the pipeline is already
+     * running has no effect.
+     */
     public void mainLoop() {
-        usageManager.dailyUsage(user);
-        Timer timer = new Timer(true);
-        Logger.info("Application starting!");
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                try {
-                    for (EventInfo event : db.eventRepository.getEvents(current_user)) {
-                        //Logger.info(event.toString());
-                        eventManager.runEvent(event);
-                    }
-
-                    for (var i : db.processRepository.getProcesses(current_user))
-                        if (processManager.isProcessRunning(i.getProcess_name())) {
-                            db.processRepository.updateTime(i.getId());
-                            int time_limit = db.processRepository.getTimeLimit(i.getId());
-                            if (time_limit > 0 && db.processRepository.getTime(i.getId()) > time_limit) {
-                                processManager.terminateProcess(i.getProcess_name());
-                            }
-                        }
-                } catch (Exception e) {
-                    Logger.warn("Error during process monitoring: " + e.getMessage());
-                }
-                if (ui != null) {
-                    javafx.application.Platform.runLater(() -> ui.updateMenu());
-                }
+        if (user != null) {
+            usageManager.dailyUsage(user);
+        }
+        if (scheduler.start()) {
+            Logger.info("Application starting!");
+        }
+    }
+
+    /**
+     * Stops the monitoring pipeline and closes the database, which writes the buffered usage time
+     * and every queued task.
+     */
+    public void stop() {
+        // Wait for a tick in progress, so no stage writes to the database once it is closed.
+        scheduler.stop(Duration.ofSeconds(5));
+        limitEnforcer.shutdown();
+        db.close(Duration.ofSeconds(5));
+    }
+
+    /**
+     * Captures the process snapshot of the current tick and emits start and exit events.
+     */
+    private void captureSnapshot() {
+        ProcessSnapshot snapshot = ProcessManager.captureSnapshot();
+        List<ProcessInfo> rules = db.processRepository.getProcesses(current_user);
+        ruleTracker.setRules(rules, snapshot);
+        limitEnforcer.setRules(rules);
+        processDiffer.update(snapshot);
+    }
+
+    /**
+     * Runs the events of the current user that are due.
+     */
+    private void runEvents() {
+        for (EventInfo event : db.eventRepository.getEvents(current_user)) {
+            eventManager.runEvent(event);
+        }
+    }
+
+    /**
+     * Adds the elapsed time to every rule with running processes. Limits themselves are enforced
+     * by the {@link LimitEnforcer} at the instant they are reached.
+     */
+    private void trackRuleTime() {
+        long now = System.nanoTime();
+        ruleClock.beginRound();
+        for (var i : ruleTracker.getActiveRules()) {
+            long seconds = ruleClock.credit(i.getId(), now, firstStarted(ruleTracker.getProcesses(i)));
+            if (seconds > 0) {
+                db.usageAccumulator.addRuleTime(i.getId(), seconds);
             }
-        }, 0, 3000);
-        new Thread( () -> {
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    processManager.trackAllProcesses(current_user);
-                    Thread.sleep(6000);
-                } catch (InterruptedException e) {
-                    Logger.info("Tracking thread interrupted");
-                    break;
-                } catch (Exception e) {
-                    Logger.error("Error during process tracking: " + e.getMessage());
-                }
+        }
+        ruleClock.endRound();
+    }
+
+    /**
+     * Gets the earliest start of the given processes.
+     *
+     * @return The earliest start instant, or {@code null} if none is known.
+     */
+    private static Instant firstStarted(List<RunningProcess> processes) {
+        Instant first = null;
+        for (RunningProcess process : processes) {
+            Instant started = process.getStartInstant();
+            if (started != null && (first == null || started.isBefore(first))) {
+                first = started;
             }
-        }).start();
+        }
+        return first;
+    }
+
+    /**
+     * Refreshes the UI on the JavaFX thread.
+     */
+    private void publishToUI() {
+        if (ui != null) {
+            javafx.application.Platform.runLater(() -> ui.updateMenu());
+        }
     }
 }
@@ -0,0 +1,102 @@
+package Processes;
+
+import java.time.Instant;
+
+/**
+ * The {@code RunningProcess} class represents a single entry of the operating system process table
+ * as it was seen when a {@link ProcessSnapshot} was captured.
+ * <p>
+ * Instances are immutable and only describe the process; they are not a handle that can be used
+ * to control it.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class RunningProcess {
+    /**
+     * The operating system process identifier.
+     */
+    private final long pid;
+
+    /**
+     * The image name of the process (for example {@code chrome.exe}).
+     */
+    private final String name;
+
+    /**
+     * The instant the process was started, or {@code null} if the source does not report it.
+     */
+    private final Instant startInstant;
+
+    /**
+     * The operating system user owning the process, or {@code null} if unknown.
+     */
+    private final String user;
+
+    /**
+     * Constructs a {@code RunningProcess} with the specified PID and image name.
+     *
+     * @param pid  The operating system process identifier.
+     * @param name The image name of the process.
+     */
+    public RunningProcess(long pid, String name) {
+        this(pid, name, null, null);
+    }
+
+    /**
+     * Constructs a {@code RunningProcess} with all fields specified.
+     *
+     * @param pid          The operating system process identifier.
+     * @param name         The image name of the process.
+     * @param startInstant The instant the process was started, or {@code null} if unknown.
+     * @param user         The user owning the process, or {@code null} if unknown.
+     */
+    public RunningProcess(long pid, String name, Instant startInstant, String user) {
+        this.pid = pid;
+        this.name = name;
+        this.startInstant = startInstant;
+        this.user = user;
+    }
+
+    /**
+     * Gets the operating system process identifier.
+     *
+     * @return The PID.
+     */
+    public long getPid() {
+        return pid;
+    }
+
+    /**
+     * Gets the image name of the process.
+     *
+     * @return The process name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the instant the process was started.
+     *
+     * @return The start instant, or {@code null} if the source does not report it.
+     */
+    public Instant getStartInstant() {
+        return startInstant;
+    }
+
+    /**
+     * Gets the operating system user owning the process.
+     *
+     * @return The user name, or {@code null} if unknown.
+     */
+    public String getUser() {
+        return user;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + pid + ")";
+    }
+}
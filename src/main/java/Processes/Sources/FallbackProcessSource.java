@@ -0,0 +1,144 @@
+package Processes.Sources;
+
+import java.util.concurrent.TimeUnit;
+
+import org.tinylog.Logger;
+
+import Processes.ProcessSnapshot;
+
+/**
+ * The {@code FallbackProcessSource} class combines a preferred {@link ProcessSource} with a
+ * fallback that is used when the preferred source fails or reports no processes.
+ * <p>
+ * When the preferred source fails, the fallback is used until a backoff delay has passed, so the
+ * failure is not paid again on every tick; the preferred source is then retried, and the delay
+ * doubles (up to a maximum) each time it fails again. A single empty scan can be a transient
+ * glitch, so the preferred source is only backed off after several empty scans in a row; until
+ * then the fallback only serves the scans that came back empty. If the fallback fails as well (for
+ * example {@code tasklist} on Linux), the preferred source is retried at once.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class FallbackProcessSource implements ProcessSource {
+    /**
+     * Delay before the preferred source is retried after its first failure, in milliseconds.
+     */
+    private static final long INITIAL_BACKOFF_MILLIS = 30_000;
+
+    /**
+     * Longest delay between two attempts of the preferred source, in milliseconds.
+     */
+    private static final long MAX_BACKOFF_MILLIS = 600_000;
+
+    /**
+     * Consecutive empty scans after which the preferred source is considered failed.
+     */
+    private static final int MAX_EMPTY_SCANS = 3;
+
+    /**
+     * The source tried first.
+     */
+    private final ProcessSource primary;
+
+    /**
+     * The source used when the primary source is unusable.
+     */
+    private final ProcessSource fallback;
+
+    /**
+     * Consecutive failures of the primary source, {@code 0} while it works.
+     */
+    private int failures = 0;
+
+    /**
+     * Consecutive empty scans of the primary source.
+     */
+    private int emptyScans = 0;
+
+    /**
+     * {@link System#nanoTime()} before which the primary source is not tried.
+     */
+    private long retryAtNanos = System.nanoTime();
+
+    /**
+     * Constructs a {@code FallbackProcessSource}.
+     *
+     * @param primary  The source tried first.
+     * @param fallback The source used when the primary source is unusable.
+     */
+    public FallbackProcessSource(ProcessSource primary, ProcessSource fallback) {
+        this.primary = primary;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public synchronized ProcessSnapshot scan() {
+        ProcessSnapshot empty = null;
+        boolean triedPrimary = !backingOff();
+        if (triedPrimary) {
+            try {
+                ProcessSnapshot snapshot = primary.scan();
+                if (snapshot.size() > 0) {
+                    if (failures > 0) {
+                        Logger.info(primary.getName() + " works again, switching back from " + fallback.getName());
+                    }
+                    failures = 0;
+                    emptyScans = 0;
+                    return snapshot;
+                }
+                empty = snapshot;
+                if (++emptyScans >= MAX_EMPTY_SCANS) {
+                    backOff("reported no processes " + emptyScans + " times in a row");
+                }
+            } catch (RuntimeException e) {
+                backOff("failed (" + e.getMessage() + ")");
+            }
+        }
+        try {
+            return fallback.scan();
+        } catch (RuntimeException e) {
+            if (empty != null) {
+                // An empty list from the preferred source beats no list at all.
+                return empty;
+            }
+            if (triedPrimary) {
+                throw e;
+            }
+            // Both sources are down; retry the preferred one before its backoff ends.
+            ProcessSnapshot snapshot = primary.scan();
+            if (snapshot.size() > 0) {
+                Logger.info(primary.getName() + " works again, switching back from " + fallback.getName());
+                failures = 0;
+            }
+            return snapshot;
+        }
+    }
+
+    @Override
+    public synchronized String getName() {
+        return backingOff() ? fallback.getName() : primary.getName();
+    }
+
+    /**
+     * Checks whether the primary source is waiting for its next retry.
+     */
+    private boolean backingOff() {
+        return failures > 0 && System.nanoTime() - retryAtNanos < 0;
+    }
+
+    /**
+     * Records a failure of the primary source and schedules its next retry.
+     *
+     * @param reason What went wrong, for the log.
+     */
+    private void backOff(String reason) {
+        failures++;
+        emptyScans = 0;
+        long delay = Math.min(INITIAL_BACKOFF_MILLIS << Math.min(failures - 1, 20), MAX_BACKOFF_MILLIS);
+        retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+        Logger.warn(primary.getName() + " " + reason + ", using " + fallback.getName()
+                + " and retrying in " + TimeUnit.MILLISECONDS.toSeconds(delay) + " s");
+    }
+}
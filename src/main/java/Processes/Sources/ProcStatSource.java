@@ -0,0 +1,444 @@
+package Processes.Sources;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.tinylog.Logger;
+
+import Processes.ProcessSnapshot;
+import Processes.RunningProcess;
+
+/**
+ * The {@code ProcStatSource} class enumerates running processes on Linux by reading
+ * {@code /proc/<pid>/stat} directly.
+ * <p>
+ * Every scan reads {@code /proc/<pid>/stat} into a single reused byte buffer and parses the
+ * fields of interest from the raw bytes, so it creates no String per line or per field. No file
+ * is kept open between scans: one descriptor per process would eat into the descriptor limit
+ * shared with the database and the UI. The process name is only decoded the first time a PID is
+ * seen (or when the PID has been reused by a new process), from the target of
+ * {@code /proc/<pid>/exe} or else from the first argument in {@code /proc/<pid>/cmdline}, so it
+ * is the full image name reported by {@link ProcessHandleSource}. Kernel threads, which have no
+ * command line, are skipped like {@link ProcessHandleSource} skips processes without a command.
+ * A file that exists but cannot be opened fails the scan, so a fallback source takes over rather
+ * than the process being reported as exited.
+ * Known processes are returned as the same {@link RunningProcess} instance on every scan.
+ * </p>
+ * <p>
+ * Listing {@code /proc} itself still yields one String per directory entry, which is the only
+ * per-process allocation the JDK does not let us avoid.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class ProcStatSource implements ProcessSource {
+
+    /**
+     * The root of the process file system.
+     */
+    private static final File PROC_DIR = new File("/proc");
+
+    /**
+     * Clock ticks per second assumed when {@code getconf CLK_TCK} cannot be run; the value of all
+     * mainstream kernels.
+     */
+    private static final long DEFAULT_CLOCK_TICKS_PER_SECOND = 100;
+
+    /**
+     * Position of the {@code starttime} field in {@code /proc/<pid>/stat} (1-based, see proc(5)).
+     */
+    private static final int STARTTIME_FIELD = 22;
+
+
+    /**
+     * Appended by the kernel to the {@code exe} link of a process whose executable was replaced.
+     */
+    private static final String DELETED_SUFFIX = " (deleted)";
+
+    /**
+     * Buffer reused for every file read during a scan.
+     */
+    private final byte[] buffer = new byte[4096];
+
+    /**
+     * Builder reused for the path of every file read during a scan.
+     */
+    private final StringBuilder path = new StringBuilder(32);
+
+    /**
+     * Processes seen by previous scans, keyed by PID.
+     */
+    private final PidTable known = new PidTable();
+
+    /**
+     * System boot time in epoch milliseconds, used to turn {@code starttime} into an {@link Instant}.
+     */
+    private final long bootTimeMillis;
+
+    /**
+     * Kernel clock ticks per second ({@code USER_HZ}), the unit of {@code starttime}.
+     */
+    private final long clockTicksPerSecond;
+
+    /**
+     * Incremented on every scan to detect processes that have exited.
+     */
+    private long generation = 0;
+
+    /**
+     * Constructs a {@code ProcStatSource} and reads the system boot time from {@code /proc/stat}
+     * and the clock tick rate from {@code getconf}.
+     */
+    public ProcStatSource() {
+        this.bootTimeMillis = readBootTimeMillis();
+        this.clockTicksPerSecond = readClockTicksPerSecond();
+    }
+
+    /**
+     * Checks whether the current system exposes a readable {@code /proc} file system.
+     *
+     * @return {@code true} if this source can be used, {@code false} otherwise.
+     */
+    public static boolean isSupported() {
+        return Files.isReadable(Paths.get("/proc/self/stat"));
+    }
+
+    @Override
+    public synchronized ProcessSnapshot scan() {
+        String[] entries = PROC_DIR.list();
+        if (entries == null) {
+            throw new RuntimeException("Unable to list " + PROC_DIR);
+        }
+        generation++;
+        ArrayList<RunningProcess> processes = new ArrayList<>(entries.length);
+        for (String entry : entries) {
+            long pid = parsePid(entry);
+            if (pid < 0) {
+                continue;
+            }
+            long startTicks = readStartTicks(entry);
+            if (startTicks < 0) {
+                continue; // exited since the listing
+            }
+            Entry cached = known.get(pid);
+            if (cached == null || cached.startTicks != startTicks) {
+                // New process, or the PID was reused by one.
+                cached = newEntry(pid, PROC_DIR.toPath().resolve(entry), startTicks);
+                known.put(pid, cached);
+            }
+            cached.generation = generation;
+            if (cached.process != null) {
+                processes.add(cached.process);
+            }
+        }
+        known.removeOlderThan(generation);
+        return new ProcessSnapshot(processes);
+    }
+
+    @Override
+    public String getName() {
+        return "/proc";
+    }
+
+    /**
+     * Creates the cache entry for a process that was not seen before, decoding its name.
+     *
+     * @param pid        The process identifier.
+     * @param dir        The {@code /proc/<pid>} directory.
+     * @param startTicks The start time of the process in clock ticks since boot.
+     * @return The new entry, with no process for a kernel thread.
+     */
+    private Entry newEntry(long pid, Path dir, long startTicks) {
+        String name = readName(dir);
+        if (name == null) {
+            return new Entry(startTicks, null);
+        }
+        String user = null;
+        try {
+            user = Files.getOwner(dir).getName();
+        } catch (IOException | UnsupportedOperationException e) {
+            // The process may have exited; the owner is optional.
+        }
+        Instant start = Instant.ofEpochMilli(bootTimeMillis + startTicks * 1000 / clockTicksPerSecond);
+        return new Entry(startTicks, new RunningProcess(pid, name, start, user));
+    }
+
+    /**
+     * Reads {@code /proc/<pid>/stat} and extracts the {@code starttime} field without decoding text.
+     *
+     * @param pid The {@code /proc} entry of the process.
+     * @return The start time in clock ticks since boot, or {@code -1} if the process has exited.
+     */
+    private long readStartTicks(String pid) {
+        int length = readFile(pid, "stat");
+        if (length <= 0) {
+            return -1;
+        }
+        byte[] bytes = buffer;
+        // The command name is wrapped in parentheses and may itself contain spaces or ')'.
+        int i = length - 1;
+        while (i >= 0 && bytes[i] != ')') {
+            i--;
+        }
+        if (i < 0) {
+            return -1;
+        }
+        i += 2;
+        int field = 3;
+        while (i < length && field < STARTTIME_FIELD) {
+            if (bytes[i] == ' ') {
+                field++;
+            }
+            i++;
+        }
+        long value = 0;
+        boolean digits = false;
+        while (i < length && bytes[i] >= '0' && bytes[i] <= '9') {
+            value = value * 10 + (bytes[i] - '0');
+            digits = true;
+            i++;
+        }
+        return digits ? value : -1;
+    }
+
+    /**
+     * Decodes the image name of a process: the file name of its executable, or of the first
+     * argument of its command line when the executable link cannot be read (processes of other
+     * users).
+     *
+     * @param dir The {@code /proc/<pid>} directory.
+     * @return The image name, or {@code null} for a kernel thread or a process that has exited.
+     */
+    private String readName(Path dir) {
+        int length = readFile(dir.getFileName().toString(), "cmdline");
+        if (length <= 0) {
+            // Kernel threads have an empty command line.
+            return null;
+        }
+        try {
+            String exe = Files.readSymbolicLink(dir.resolve("exe")).toString();
+            if (exe.endsWith(DELETED_SUFFIX)) {
+                exe = exe.substring(0, exe.length() - DELETED_SUFFIX.length());
+            }
+            return ProcessHandleSource.imageName(exe);
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // Not permitted for processes of other users; fall back to argv[0].
+        }
+        byte[] bytes = buffer;
+        int end = 0;
+        while (end < length && bytes[end] != 0) {
+            end++;
+        }
+        return end == 0 ? null : ProcessHandleSource.imageName(new String(bytes, 0, end, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a file of a process directory into the shared buffer.
+     *
+     * @param pid  The {@code /proc} entry of the process.
+     * @param name The file name, e.g. {@code stat}.
+     * @return The number of bytes read, or {@code -1} if the process no longer exists.
+     * @throws RuntimeException If the file cannot be opened although the process still exists (for
+     *                          example the descriptor limit was reached), so the scan fails
+     *                          instead of reporting the process as exited.
+     */
+    private int readFile(String pid, String name) {
+        path.setLength(0);
+        path.append(PROC_DIR.getPath()).append('/').append(pid).append('/').append(name);
+        FileInputStream in;
+        try {
+            in = new FileInputStream(path.toString());
+        } catch (FileNotFoundException e) {
+            // The exception does not say why; only a vanished process is expected.
+            if (!new File(PROC_DIR, pid).exists()) {
+                return -1;
+            }
+            throw new RuntimeException("Unable to open " + path + ": " + e.getMessage(), e);
+        }
+        int length = 0;
+        try (in) {
+            int read;
+            while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) > 0) {
+                length += read;
+            }
+        } catch (IOException e) {
+            // Reading the file of an exited process fails.
+            return -1;
+        }
+        return length;
+    }
+
+    /**
+     * Parses a {@code /proc} directory entry as a PID.
+     *
+     * @param entry The directory entry name.
+     * @return The PID, or {@code -1} if the entry is not a process directory.
+     */
+    private static long parsePid(String entry) {
+        long pid = 0;
+        int length = entry.length();
+        if (length == 0) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = entry.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            pid = pid * 10 + (c - '0');
+        }
+        return pid;
+    }
+
+    /**
+     * Reads the boot time from the {@code btime} line of {@code /proc/stat}.
+     *
+     * @return The boot time in epoch milliseconds, or {@code 0} if it could not be read.
+     */
+    private static long readBootTimeMillis() {
+        try {
+            List<String> lines = Files.readAllLines(Paths.get("/proc/stat"));
+            for (String line : lines) {
+                if (line.startsWith("btime ")) {
+                    return Long.parseLong(line.substring(6).trim()) * 1000;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            Logger.warn("Unable to read boot time: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Reads the kernel clock tick rate with {@code getconf CLK_TCK}.
+     *
+     * @return The clock ticks per second, or {@link #DEFAULT_CLOCK_TICKS_PER_SECOND} if it could
+     *         not be read.
+     */
+    private static long readClockTicksPerSecond() {
+        try {
+            Process getconf = new ProcessBuilder("getconf", "CLK_TCK").redirectErrorStream(true).start();
+            String output = new String(getconf.getInputStream().readAllBytes(), StandardCharsets.US_ASCII).trim();
+            if (getconf.waitFor() == 0) {
+                long ticks = Long.parseLong(output);
+                if (ticks > 0) {
+                    return ticks;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            Logger.warn("Unable to read the clock tick rate, assuming " + DEFAULT_CLOCK_TICKS_PER_SECOND + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return DEFAULT_CLOCK_TICKS_PER_SECOND;
+    }
+
+    /**
+     * A process seen by a previous scan.
+     */
+    private static final class Entry {
+        final long startTicks;
+
+        /**
+         * The process, or {@code null} for a kernel thread, which is tracked but not reported.
+         */
+        final RunningProcess process;
+        long generation;
+
+        Entry(long startTicks, RunningProcess process) {
+            this.startTicks = startTicks;
+            this.process = process;
+        }
+    }
+
+    /**
+     * An open-addressing map from PID to {@link Entry}, avoiding boxed {@code Long} keys on lookup.
+     */
+    private static final class PidTable {
+        private long[] keys = new long[1024];
+        private Entry[] values = new Entry[1024];
+        private int size = 0;
+
+        Entry get(long pid) {
+            int mask = keys.length - 1;
+            for (int i = index(pid, mask); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == pid) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        void put(long pid, Entry entry) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int i = index(pid, mask);
+            while (values[i] != null) {
+                if (keys[i] == pid) {
+                    values[i] = entry;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = pid;
+            values[i] = entry;
+            size++;
+        }
+
+        /**
+         * Drops every entry that was not seen in the given scan generation.
+         * The table is only rebuilt when something was actually removed.
+         */
+        void removeOlderThan(long generation) {
+            int live = 0;
+            for (Entry value : values) {
+                if (value != null && value.generation == generation) {
+                    live++;
+                }
+            }
+            if (live == size) {
+                return;
+            }
+            long[] oldKeys = keys;
+            Entry[] oldValues = values;
+            keys = new long[oldKeys.length];
+            values = new Entry[oldValues.length];
+            size = 0;
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != null && oldValues[i].generation == generation) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            Entry[] oldValues = values;
+            keys = new long[capacity];
+            values = new Entry[capacity];
+            size = 0;
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != null) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int index(long pid, int mask) {
+            long h = pid * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
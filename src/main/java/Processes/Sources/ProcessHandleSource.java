@@ -0,0 +1,55 @@
+package Processes.Sources;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Optional;
+
+import Processes.ProcessSnapshot;
+import Processes.RunningProcess;
+
+/**
+ * The {@code ProcessHandleSource} class enumerates running processes inside the JVM through
+ * {@link ProcessHandle#allProcesses()}, without forking a child process or parsing text output.
+ * <p>
+ * Processes whose command cannot be read (typically processes owned by other accounts when the
+ * application is not elevated) are skipped, since no image name is available for them.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class ProcessHandleSource implements ProcessSource {
+
+    @Override
+    public ProcessSnapshot scan() {
+        ArrayList<RunningProcess> processes = new ArrayList<>();
+        ProcessHandle.allProcesses().forEach(handle -> {
+            ProcessHandle.Info info = handle.info();
+            Optional<String> command = info.command();
+            if (command.isEmpty()) {
+                return;
+            }
+            Instant start = info.startInstant().orElse(null);
+            String user = info.user().orElse(null);
+            processes.add(new RunningProcess(handle.pid(), imageName(command.get()), start, user));
+        });
+        return new ProcessSnapshot(processes);
+    }
+
+    @Override
+    public String getName() {
+        return "ProcessHandle";
+    }
+
+    /**
+     * Extracts the executable file name from a full command path, accepting both Windows and
+     * Unix separators.
+     *
+     * @param command The full path of the executable.
+     * @return The image name, for example {@code chrome.exe}.
+     */
+    static String imageName(String command) {
+        int separator = Math.max(command.lastIndexOf('\\'), command.lastIndexOf('/'));
+        return separator == -1 ? command : command.substring(separator + 1);
+    }
+}
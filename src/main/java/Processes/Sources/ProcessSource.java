@@ -0,0 +1,45 @@
+package Processes.Sources;
+
+import Processes.ProcessSnapshot;
+
+/**
+ * The {@code ProcessSource} interface abstracts how the list of running processes is obtained
+ * from the operating system.
+ * <p>
+ * Implementations return a complete {@link ProcessSnapshot} on every call to {@link #scan()} and
+ * report failures as unchecked exceptions, so a caller can fall back to another source.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public interface ProcessSource {
+
+    /**
+     * Enumerates the processes that are currently running.
+     *
+     * @return A {@link ProcessSnapshot} of the running processes.
+     */
+    ProcessSnapshot scan();
+
+    /**
+     * Gets a short name describing this source, used in log messages.
+     *
+     * @return The source name.
+     */
+    String getName();
+
+    /**
+     * Creates the source used by default. On Linux the {@code /proc} scanner is used, falling back
+     * to {@link ProcessHandle}; elsewhere in-JVM enumeration through {@link ProcessHandle} is used,
+     * falling back to parsing {@code tasklist} when that yields no processes.
+     *
+     * @return The default {@code ProcessSource}.
+     */
+    static ProcessSource defaultSource() {
+        if (ProcStatSource.isSupported()) {
+            return new FallbackProcessSource(new ProcStatSource(), new ProcessHandleSource());
+        }
+        return new FallbackProcessSource(new ProcessHandleSource(), new TasklistSource());
+    }
+}
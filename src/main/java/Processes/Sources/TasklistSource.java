@@ -0,0 +1,66 @@
+package Processes.Sources;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import Processes.ProcessSnapshot;
+import Processes.RunningProcess;
+
+/**
+ * The {@code TasklistSource} class enumerates running processes by executing the Windows
+ * {@code tasklist} command and parsing its text output.
+ * <p>
+ * It forks a child process on every scan and is only kept as a fallback for systems where
+ * {@link ProcessHandleSource} cannot read process information.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class TasklistSource implements ProcessSource {
+
+    /**
+     * Matches a {@code tasklist} row: the image name (which may contain spaces) followed by the PID.
+     */
+    private static final Pattern TASKLIST_LINE = Pattern.compile("^(\\S.*?)\\s+(\\d+)\\s");
+
+    @Override
+    public ProcessSnapshot scan() {
+        ArrayList<RunningProcess> processes = new ArrayList<>();
+        try (BufferedReader buffer = getRunningProcesses()) {
+            String line;
+            while ((line = buffer.readLine()) != null) {
+                Matcher matcher = TASKLIST_LINE.matcher(line);
+                if (matcher.find()) {
+                    processes.add(new RunningProcess(Long.parseLong(matcher.group(2)), matcher.group(1).trim()));
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new ProcessSnapshot(processes);
+    }
+
+    @Override
+    public String getName() {
+        return "tasklist";
+    }
+
+    /**
+     * Returns a BufferedReader for the list of currently running processes.
+     *
+     * @return A BufferedReader for the running processes output.
+     */
+    public static BufferedReader getRunningProcesses() {
+        try {
+            Process process = Runtime.getRuntime().exec("tasklist");
+            return new BufferedReader(new InputStreamReader(process.getInputStream()));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -1,20 +1,51 @@
 package db;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 
 import org.tinylog.Logger;
 
+import javafx.application.Platform;
+
 import db.Repositories.AdminRepository;
 import db.Repositories.DailyUsageRepository;
 import db.Repositories.EventRepository;
 import db.Repositories.ProcessRepository;
 import db.Repositories.UsageTrackingRepository;
 import db.Repositories.UserRepository;
+import db.Stores.EventStore;
+import db.Stores.InMemoryEventStore;
+import db.Stores.InMemoryRuleStore;
+import db.Stores.InMemoryUsageStore;
+import db.Stores.InMemoryUserStore;
+import db.Stores.RuleStore;
+import db.Stores.UsageStore;
+import db.Stores.UserStore;
 
 /**
  * The {@code Database} class provides a singleton interface for managing all database operations
@@ -25,6 +56,11 @@ import db.Repositories.UserRepository;
  * This class handles CRUD operations for users, processes, time limits, and events, as well as
  * secure password management for admin access. It uses SQLite as the underlying database.
  * </p>
+ * <p>
+ * Users, rules, usage and events are reached through the {@link UserStore}, {@link RuleStore},
+ * {@link UsageStore} and {@link EventStore} interfaces, backed by the SQLite repositories or, for
+ * a database created with {@link #inMemory()}, by concurrent in-memory stores.
+ * </p>
  * <h2>Features:</h2>
  * <ul>
  *   <li>Singleton pattern for a single database connection</li>
@@ -37,21 +73,56 @@ import db.Repositories.UserRepository;
  *
  * <h2>Thread Safety:</h2>
  * <p>
- * All write operations are executed asynchronously on a background thread. Some read operations
- * are synchronized to ensure thread safety.
+ * All write operations are executed asynchronously on a background thread. SQLite runs in WAL
+ * mode and read operations use a small pool of read-only connections (see {@link #read(ReadTask)}),
+ * so they never share the writer connection and can run concurrently with writes.
+ * </p>
+ * <p>
+ * The background thread group-commits: it drains the queued tasks into a single transaction,
+ * isolating each task with a savepoint, so a burst of writes costs one commit.
+ * </p>
+ * <p>
+ * {@link #close(Duration)} stops accepting tasks, lets the background thread drain the queue and
+ * closes the connections, so queued writes are not lost when the application exits.
  * </p>
  *
  * @author Claudiu Padure
  * @version 1.0
  */
 public class Database {
-    public final UserRepository userRepository;
-    public final ProcessRepository processRepository;
-    public final UsageTrackingRepository usageTrackingRepository;
-    public final EventRepository eventRepository;
+    public final UserStore userRepository;
+    public final RuleStore processRepository;
+    public final UsageStore usageTrackingRepository;
+    public final EventStore eventRepository;
     public final AdminRepository adminRepository;
     public final DailyUsageRepository dailyUsageRepository;
 
+    /**
+     * Buffers usage tracking increments and writes them in batches.
+     */
+    public final UsageAccumulator usageAccumulator;
+
+    /**
+     * Compacts old daily usage into monthly totals and vacuums the database file.
+     */
+    public final UsageMaintenance usageMaintenance;
+
+    /**
+     * Interns process names into the integer IDs of the {@code ProcessNames} table.
+     */
+    public final ProcessNameDictionary processNames = new ProcessNameDictionary();
+
+    /**
+     * Queue wait, execution time and row counts of every named database operation.
+     */
+    public final DatabaseMetrics metrics = new DatabaseMetrics();
+
+    /**
+     * Rows read or written on the current thread, reported by the statement caches and sampled
+     * around each operation.
+     */
+    private final ThreadLocal<long[]> rowCount = ThreadLocal.withInitial(() -> new long[1]);
+
     /**
      * Database connection object.
      */
@@ -68,15 +139,119 @@ public class Database {
     private static Database instance;
 
     /**
-     * A blocking queue to hold database-related tasks for asynchronous execution.
+     * Maximum number of tasks waiting for the database thread.
+     */
+    private static final int MAX_QUEUED_TASKS = 10_000;
+
+    /**
+     * How long a producer waits for room in a full task queue before its task is rejected, in
+     * milliseconds. The JavaFX application thread never waits; its tasks are rejected at once.
      */
-    private final BlockingQueue<Runnable> taskQueue = new LinkedBlockingQueue<>();
+    private static final long MAX_QUEUE_WAIT_MILLIS = 5000;
+
+    /**
+     * A bounded queue holding database-related tasks for asynchronous execution, in which
+     * repeated updates of the same row are merged.
+     */
+    private final TaskQueue taskQueue = new TaskQueue(MAX_QUEUED_TASKS, TaskQueue.OverflowPolicy.BLOCK, MAX_QUEUE_WAIT_MILLIS);
 
     /**
      * A dedicated thread used to process tasks in the {@code taskQueue}.
      */
     private final Thread dbThread;
 
+    /**
+     * The SQLite database file.
+     */
+    private static final String URL = "jdbc:sqlite:data.db";
+
+    /**
+     * A private SQLite database held in memory, used by {@link #inMemory()}.
+     */
+    private static final String MEMORY_URL = "jdbc:sqlite::memory:";
+
+    /**
+     * System property overriding the number of days of daily usage kept by the
+     * {@link UsageMaintenance} of the application database.
+     */
+    public static final String RETENTION_DAYS_PROPERTY = "usage.retentionDays";
+
+    /**
+     * System property overriding the directory receiving the daily usage archived by the
+     * {@link UsageMaintenance} of the application database.
+     */
+    public static final String ARCHIVE_DIR_PROPERTY = "usage.archiveDir";
+
+    /**
+     * The JDBC URL of the SQLite database.
+     */
+    private final String url;
+
+    /**
+     * Number of read-only connections used by the read methods of the repositories.
+     */
+    private static final int READ_POOL_SIZE = 3;
+
+    /**
+     * How long a connection waits for a lock held by another connection, in milliseconds.
+     */
+    private static final int BUSY_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Maximum number of prepared statements cached per connection.
+     */
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    /**
+     * The prepared statement caches of the writer and read connections.
+     */
+    private final List<StatementCache> statementCaches = new CopyOnWriteArrayList<>();
+
+    /**
+     * Idle read-only connections, or {@code null} if they could not be opened and reads share
+     * the writer connection.
+     */
+    private final BlockingQueue<Connection> readConnections;
+
+    /**
+     * Runs the queries issued through {@link #readAsync(ReadTask)}, one thread per read connection.
+     */
+    private final ExecutorService readExecutor = Executors.newFixedThreadPool(READ_POOL_SIZE, r -> {
+        Thread thread = new Thread(r, "db-reader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Maximum number of queued tasks committed together in one transaction.
+     */
+    private static final int MAX_BATCH_SIZE = 256;
+
+    /**
+     * Maximum time a group-commit transaction is kept open, in milliseconds.
+     */
+    private static final long MAX_BATCH_MILLIS = 50;
+
+    /**
+     * Completions of the tasks in the current batch, run once it commits. Only used on {@code dbThread}.
+     */
+    private final List<Runnable> commitCallbacks = new ArrayList<>();
+
+    /**
+     * Failure handlers of the tasks in the current batch, run if it rolls back. Only used on {@code dbThread}.
+     */
+    private final List<Consumer<Throwable>> failureCallbacks = new ArrayList<>();
+
+    /**
+     * How long {@link #close(Duration)} waits for the batch in progress after the deadline, and
+     * for the readers to return their connections, in milliseconds.
+     */
+    private static final long CLOSE_GRACE_MILLIS = 1000;
+
+    /**
+     * Set once {@link #close(Duration)} has been called.
+     */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
 
     public Connection getCon() {
         return con;
@@ -95,88 +270,132 @@ public class Database {
     }
 
     /**
-     * Constructor to initialize the database connection and background task thread.
-     * Creates all required tables if they do not exist.
+     * Constructor to initialize the connection to the application database file and the
+     * background task thread. The usage retention and archive directory can be set with the
+     * {@value #RETENTION_DAYS_PROPERTY} and {@value #ARCHIVE_DIR_PROPERTY} system properties.
      */
     public Database() {
-        userRepository = new UserRepository(this);
-        processRepository = new ProcessRepository(this);
-        usageTrackingRepository = new UsageTrackingRepository(this);
-        eventRepository = new EventRepository(this);
+        this(URL, Integer.getInteger(RETENTION_DAYS_PROPERTY, UsageMaintenance.DEFAULT_RETENTION_DAYS),
+                Paths.get(System.getProperty(ARCHIVE_DIR_PROPERTY, UsageMaintenance.DEFAULT_ARCHIVE_DIR)));
+    }
+
+    /**
+     * Constructor to initialize the connection to the given SQLite database and the background
+     * task thread, with the default usage retention and archive directory.
+     *
+     * @param url The JDBC URL of the database, e.g. {@code jdbc:sqlite:data.db}.
+     */
+    public Database(String url) {
+        this(url, UsageMaintenance.DEFAULT_RETENTION_DAYS, Paths.get(UsageMaintenance.DEFAULT_ARCHIVE_DIR));
+    }
+
+    /**
+     * Constructor to initialize the connection to the given SQLite database and the background
+     * task thread. Brings the schema up to date with the {@link SchemaMigrations}.
+     *
+     * @param url           The JDBC URL of the database, e.g. {@code jdbc:sqlite:data.db}.
+     * @param retentionDays Number of days whose daily usage records are kept before being
+     *                      archived and rolled up into monthly totals.
+     * @param archiveDir    The directory receiving the archived daily usage records.
+     */
+    public Database(String url, int retentionDays, Path archiveDir) {
+        this(url, false, retentionDays, archiveDir);
+    }
+
+    /**
+     * Creates a database whose users, rules, usage and events are kept in the concurrent
+     * in-memory stores of {@link db.Stores}, for benchmarks and tests that must not touch the
+     * disk. Admin and daily usage data live in a private in-memory SQLite database.
+     *
+     * @return A new, empty database.
+     */
+    public static Database inMemory() {
+        return new Database(MEMORY_URL, true, UsageMaintenance.DEFAULT_RETENTION_DAYS,
+                Paths.get(UsageMaintenance.DEFAULT_ARCHIVE_DIR));
+    }
+
+    private Database(String url, boolean inMemoryStores, int retentionDays, Path archiveDir) {
+        this.url = url;
+        if (inMemoryStores) {
+            InMemoryRuleStore rules = new InMemoryRuleStore();
+            InMemoryEventStore events = new InMemoryEventStore();
+            userRepository = new InMemoryUserStore(rules, events);
+            processRepository = rules;
+            usageTrackingRepository = new InMemoryUsageStore();
+            eventRepository = events;
+        } else {
+            ProcessRepository rules = new ProcessRepository(this);
+            EventRepository events = new EventRepository(this);
+            userRepository = new UserRepository(this, rules, events);
+            processRepository = rules;
+            usageTrackingRepository = new UsageTrackingRepository(this);
+            eventRepository = events;
+        }
         adminRepository = new AdminRepository(this);
         dailyUsageRepository = new DailyUsageRepository(this);
-        
-        try {
-            con = DriverManager.getConnection("jdbc:sqlite:data.db");
-            Statement stm = con.createStatement();
-            stm.executeUpdate("""
-                CREATE TABLE IF NOT EXISTS Users (
-                    ID INTEGER PRIMARY KEY AUTOINCREMENT,
-                    NAME TEXT NOT NULL,
-                    IP TEXT NOT NULL
-                );
-                CREATE TABLE IF NOT EXISTS Processes (
-                    ID INTEGER PRIMARY KEY AUTOINCREMENT,
-                    USER_ID INTEGER NOT NULL,
-                    PROCESS_NAME TEXT NOT NULL,
-                    TOTAL_TIME INTEGER NOT NULL DEFAULT 0,
-                    FOREIGN KEY (USER_ID) REFERENCES Users(ID)
-                );
-                CREATE TABLE IF NOT EXISTS TimeLimits (
-                    ID INTEGER PRIMARY KEY AUTOINCREMENT,
-                    PROCESS_ID INTEGER NOT NULL,
-                    TIME_LIMIT INTEGER NOT NULL,
-                    FOREIGN KEY (PROCESS_ID) REFERENCES Processes(ID)
-                );
-                CREATE TABLE IF NOT EXISTS UsageTracking (
-                    ID INTEGER PRIMARY KEY AUTOINCREMENT,
-                    USER_ID INTEGER,
-                    NAME INTEGER NOT NULL,
-                    TIME INTEGER NOT NULL,
-                    FOREIGN KEY (USER_ID) REFERENCES Users(ID),
-                    UNIQUE(USER_ID,NAME)
-                );
-                CREATE TABLE IF NOT EXISTS Events (
-                    ID INTEGER PRIMARY KEY AUTOINCREMENT,
-                    USER_ID INTEGER NOT NULL,
-                    EVENT_NAME TEXT NOT NULL,
-                    TIME INTEGER NOT NULL,
-                    BEFORE_AT INTEGER NOT NULL,
-                    REPEAT INTEGER NOT NULL,
-                    CREATED_AT INTEGER NOT NULL,
-                    FOREIGN KEY (USER_ID) REFERENCES Users(ID)
-                );
-                CREATE TABLE IF NOT EXISTS Admin (
-                    ID INTEGER PRIMARY KEY AUTOINCREMENT,
-                    PASSWORD TEXT NOT NULL
-                );
-                CREATE TABLE IF NOT EXISTS DailyUsage (
-                    ID INTEGER PRIMARY KEY AUTOINCREMENT,
-                    USER_ID INTEGER NOT NULL,
-                    DATE TEXT NOT NULL,
-                    USAGE_SECONDS INTEGER NOT NULL DEFAULT 0,
-                    FOREIGN KEY (USER_ID) REFERENCES Users(ID),
-                    UNIQUE(USER_ID, DATE)
-                );
-            """);
-            Logger.info("Database successfully created");
+
+        try {
+            con = cacheStatements(DriverManager.getConnection(url));
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        try (Statement stm = con.createStatement()) {
+            // WAL lets the read connections query the database while the writer commits.
+            stm.execute("PRAGMA journal_mode=WAL");
+            stm.execute("PRAGMA synchronous=NORMAL");
+            stm.execute("PRAGMA busy_timeout=" + BUSY_TIMEOUT_MILLIS);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        try {
+            int version = new MigrationRunner(SchemaMigrations.all()).migrate(con);
+            Logger.info("Database schema is at version " + version);
+            processNames.load(con);
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
         Logger.info("Successfully connected to database");
+        // Every connection to an in-memory database opens a database of its own.
+        readConnections = isMemory(url) ? null : openReadConnections();
+
+        UsageJournal journal = null;
+        if (!isMemory(url)) {
+            try {
+                journal = new UsageJournal(journalPath(url));
+            } catch (IOException e) {
+                Logger.error("Unable to open usage journal, unflushed usage will not survive a crash: " + e.getMessage());
+            }
+        }
+        usageAccumulator = new UsageAccumulator(this, journal);
+        usageMaintenance = new UsageMaintenance(this, retentionDays, archiveDir);
 
         dbThread = new Thread(() -> {
             while (true) {
                 try {
                     Runnable task = taskQueue.take();
-                    task.run();
+                    if (task == null) {
+                        break; // closed and drained
+                    }
+                    if (runsInTransaction(task)) {
+                        runBatch(task);
+                    } else {
+                        runTask(task);
+                    }
                 } catch (InterruptedException e) {
                     Logger.error("Database task thread interrupted!");
                     break;
+                } catch (Throwable e) {
+                    // Keep the writer alive; every queued future depends on it.
+                    Logger.error("Database writer failed, recovering: " + e);
+                    resetWriter();
                 }
             }
-        });
+        }, "db-writer");
         dbThread.start();
+
+        if (usageAccumulator.replayJournal() > 0) {
+            usageAccumulator.flush();
+        }
     }
 
     /**
@@ -191,12 +410,853 @@ public class Database {
         return instance;
     }
 
+    /**
+     * Closes the database: writes the buffered usage counters, stops accepting tasks, lets the
+     * database thread commit every queued task, checkpoints the WAL into the database file and
+     * closes the connections and the usage journal.
+     * <p>
+     * Tasks still queued when the timeout expires are dropped: their futures complete
+     * exceptionally and buffered usage they carried stays in the journal, to be replayed on the
+     * next start. Calling this method again has no effect.
+     * </p>
+     *
+     * @param timeout How long to wait for the queued tasks to be written.
+     * @return The number of queued tasks that were dropped.
+     */
+    public int close(Duration timeout) {
+        if (!closed.compareAndSet(false, true)) {
+            return 0;
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        usageMaintenance.shutdown();
+        usageAccumulator.flush();
+        taskQueue.close();
+
+        int dropped = 0;
+        try {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            dbThread.join(Math.max(remaining, 1));
+            if (dbThread.isAlive()) {
+                List<Runnable> pending = taskQueue.clear();
+                dropped = pending.size();
+                CancellationException cause = new CancellationException("Database closed before the task ran");
+                for (Runnable task : pending) {
+                    if (task instanceof DroppableTask droppable) {
+                        droppable.drop(cause);
+                    }
+                }
+                // Let the batch in progress commit.
+                dbThread.join(CLOSE_GRACE_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dbThread.isAlive()) {
+            Logger.error("Database thread did not stop, leaving the connections open (" + dropped + " tasks dropped)");
+            return dropped;
+        }
+
+        readExecutor.shutdown();
+        if (readConnections != null) {
+            for (int i = 0; i < READ_POOL_SIZE; i++) {
+                Connection reader = null;
+                try {
+                    reader = readConnections.poll(CLOSE_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (reader == null) {
+                    Logger.warn("A read connection is still in use and was not closed");
+                    continue;
+                }
+                try {
+                    reader.close();
+                } catch (SQLException e) {
+                    Logger.error("Error closing read connection: " + e.getMessage());
+                }
+            }
+        }
+        try (Statement stm = con.createStatement()) {
+            stm.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+        } catch (SQLException e) {
+            Logger.error("Error checkpointing the database: " + e.getMessage());
+        }
+        try {
+            con.close();
+        } catch (SQLException e) {
+            Logger.error("Error closing database connection: " + e.getMessage());
+        }
+        usageAccumulator.close();
+
+        if (dropped > 0) {
+            Logger.warn("Database closed, " + dropped + " queued tasks were dropped");
+        } else {
+            Logger.info("Database closed, all queued tasks were written");
+        }
+        return dropped;
+    }
+
     /**
      * Adds a task to the database task queue for asynchronous execution.
+     * The task runs inside a group-commit transaction; if it throws, only its own changes are
+     * rolled back.
+     *
+     * If the queue stays full, or is full when called from the JavaFX application thread, the task
+     * is dropped and the error is logged.
      *
      * @param task A {@code Runnable} task to be executed.
      */
     public void executeDatabaseTask(Runnable task) {
-        taskQueue.add(task);
+        executeDatabaseTask("task", task);
+    }
+
+    /**
+     * Adds a named task to the database task queue for asynchronous execution; its queue wait,
+     * execution time and rows are recorded in {@link #metrics} under that name.
+     *
+     * @param operation The name of the operation, e.g. {@code "updateTime"}.
+     * @param task      A {@code Runnable} task to be executed.
+     */
+    public void executeDatabaseTask(String operation, Runnable task) {
+        try {
+            taskQueue.put(new TimedTask(operation, task, null, true), mayWaitForRoom());
+        } catch (RejectedExecutionException e) {
+            Logger.error("Database task dropped: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds a task to the database task queue and returns a future for its result.
+     * The future completes only once the transaction containing the task has been committed, and
+     * completes exceptionally if the task throws, the commit fails, the queue stays full (or is
+     * full when called from the JavaFX application thread) or the database is closed before the
+     * task runs.
+     *
+     * @param task The task to be executed.
+     * @param <T>  The type of the result.
+     * @return A future completed with the result of the task after commit.
+     */
+    public <T> CompletableFuture<T> submitDatabaseTask(Callable<T> task) {
+        return submitDatabaseTask("task", task);
+    }
+
+    /**
+     * Adds a named task to the database task queue and returns a future for its result; its queue
+     * wait, execution time and rows are recorded in {@link #metrics} under that name.
+     *
+     * @param operation The name of the operation, e.g. {@code "addTimes"}.
+     * @param task      The task to be executed.
+     * @param <T>       The type of the result.
+     * @return A future completed with the result of the task after commit.
+     */
+    public <T> CompletableFuture<T> submitDatabaseTask(String operation, Callable<T> task) {
+        return submit(operation, task, true);
+    }
+
+    /**
+     * Adds a named task to the database task queue that runs on its own, outside any transaction,
+     * for statements SQLite refuses inside one such as {@code VACUUM}. The writer finishes the
+     * batch in progress first, and the tasks queued behind it wait until it is done.
+     *
+     * @param operation The name of the operation, recorded in {@link #metrics}.
+     * @param task      The task to be executed.
+     * @param <T>       The type of the result.
+     * @return A future completed with the result of the task once it has run.
+     */
+    public <T> CompletableFuture<T> submitStandaloneTask(String operation, Callable<T> task) {
+        return submit(operation, task, false);
+    }
+
+    /**
+     * Queues a task whose future completes once it has run and, inside a transaction, committed.
+     */
+    private <T> CompletableFuture<T> submit(String operation, Callable<T> task, boolean inTransaction) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable queued = () -> {
+            T value;
+            try {
+                value = task.call();
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+                throw e instanceof RuntimeException re ? re : new RuntimeException(e);
+            }
+            commitCallbacks.add(() -> result.complete(value));
+            failureCallbacks.add(result::completeExceptionally);
+        };
+        try {
+            taskQueue.put(new TimedTask(operation, queued, result::completeExceptionally, inTransaction), mayWaitForRoom());
+        } catch (RejectedExecutionException e) {
+            Logger.error("Database task rejected: " + e.getMessage());
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * A write whose argument accumulates the updates merged into it.
+     *
+     * @param <V> The type of the merged value.
+     */
+    @FunctionalInterface
+    public interface MergedWrite<V> {
+        void write(V value) throws Exception;
+    }
+
+    /**
+     * Adds an update of a single row to the database task queue. While a task for the same key is
+     * still waiting, the update is merged into it with {@code combiner} instead of being queued,
+     * so a stalled database accumulates one pending write per row rather than one per update.
+     *
+     * @param operation The name of the operation, recorded in {@link #metrics}.
+     * @param key       Identifies the row, for example the user and process name of a usage counter.
+     * @param value     The update, for example a number of seconds to add.
+     * @param combiner  Merges two updates of the same row into one.
+     * @param write     Writes the merged update.
+     * @param <V>       The type of the update.
+     * @return A future completed once the write carrying this update is committed; it is shared by
+     *         every update merged into the same write.
+     */
+    public <V> CompletableFuture<Void> submitCoalescingTask(String operation, Object key, V value,
+                                                           BinaryOperator<V> combiner, MergedWrite<V> write) {
+        try {
+            return taskQueue.merge(key, () -> new CoalescedTask<>(operation, value, write),
+                    task -> task.value = combiner.apply(task.value, value), mayWaitForRoom()).result;
+        } catch (RejectedExecutionException e) {
+            Logger.error("Database task rejected: " + e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Whether the calling thread may wait for room in a full task queue. The JavaFX application
+     * thread may not, since waiting would freeze the interface; its task fails instead.
+     */
+    private static boolean mayWaitForRoom() {
+        return !Platform.isFxApplicationThread();
+    }
+
+    /**
+     * Gets the number of tasks waiting for the database thread.
+     *
+     * @return The task queue depth.
+     */
+    public int getQueuedTaskCount() {
+        return taskQueue.depth();
+    }
+
+    /**
+     * Gets the highest number of tasks that were waiting for the database thread at the same time.
+     *
+     * @return The peak task queue depth.
+     */
+    public long getPeakQueuedTaskCount() {
+        return taskQueue.getPeakDepth();
+    }
+
+    /**
+     * Gets the number of updates merged into a waiting task instead of being queued.
+     *
+     * @return The number of merged updates.
+     */
+    public long getMergedTaskCount() {
+        return taskQueue.getMergedCount();
+    }
+
+    /**
+     * Gets the number of tasks rejected because the task queue stayed full.
+     *
+     * @return The number of rejected tasks.
+     */
+    public long getRejectedTaskCount() {
+        return taskQueue.getRejectedCount();
+    }
+
+    /**
+     * A queued write that accumulates the updates of one row until the database thread runs it.
+     */
+    private final class CoalescedTask<V> implements DroppableTask {
+        /**
+         * The merged update; only changed while the task waits in the queue.
+         */
+        V value;
+        final String operation;
+        final MergedWrite<V> write;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        /**
+         * When the first update was queued.
+         */
+        final long queuedAt = System.nanoTime();
+
+        CoalescedTask(String operation, V value, MergedWrite<V> write) {
+            this.operation = operation;
+            this.value = value;
+            this.write = write;
+        }
+
+        @Override
+        public void run() {
+            long[] rows = rowCount.get();
+            long rowsBefore = rows[0];
+            long start = System.nanoTime();
+            try {
+                write.write(value);
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+                throw e instanceof RuntimeException re ? re : new RuntimeException(e);
+            } finally {
+                metrics.record(operation, start - queuedAt, System.nanoTime() - start, rows[0] - rowsBefore);
+            }
+            commitCallbacks.add(() -> result.complete(null));
+            failureCallbacks.add(result::completeExceptionally);
+        }
+
+        @Override
+        public String operation() {
+            return operation;
+        }
+
+        @Override
+        public void drop(Throwable cause) {
+            result.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * A queued task that can be discarded without running, by {@link #close(Duration)}.
+     */
+    private interface DroppableTask extends Runnable {
+        /**
+         * Gets the name of the operation, as recorded in {@link #metrics}.
+         *
+         * @return The operation name.
+         */
+        String operation();
+
+        /**
+         * Notifies whoever waits for the task that it will never run.
+         *
+         * @param cause Why the task was dropped.
+         */
+        void drop(Throwable cause);
+    }
+
+    /**
+     * A queued task whose queue wait, execution time and rows are recorded.
+     */
+    private final class TimedTask implements DroppableTask {
+        final String operation;
+        final Runnable task;
+
+        /**
+         * Fails the future of the task if it is dropped, {@code null} if nobody waits for it.
+         */
+        final Consumer<Throwable> onDrop;
+
+        /**
+         * {@code false} if the task must run on its own, outside the group-commit transaction.
+         */
+        final boolean inTransaction;
+        final long queuedAt = System.nanoTime();
+
+        TimedTask(String operation, Runnable task, Consumer<Throwable> onDrop, boolean inTransaction) {
+            this.operation = operation;
+            this.task = task;
+            this.onDrop = onDrop;
+            this.inTransaction = inTransaction;
+        }
+
+        @Override
+        public void run() {
+            long[] rows = rowCount.get();
+            long rowsBefore = rows[0];
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                metrics.record(operation, start - queuedAt, System.nanoTime() - start, rows[0] - rowsBefore);
+            }
+        }
+
+        @Override
+        public String operation() {
+            return operation;
+        }
+
+        @Override
+        public void drop(Throwable cause) {
+            if (onDrop != null) {
+                onDrop.accept(cause);
+            }
+        }
+    }
+
+    /**
+     * Whether a queued task runs inside the group-commit transaction of a batch.
+     */
+    private static boolean runsInTransaction(Runnable task) {
+        return !(task instanceof TimedTask timed) || timed.inTransaction;
+    }
+
+    /**
+     * A query run on a database connection.
+     *
+     * @param <T> The type of the result.
+     */
+    @FunctionalInterface
+    public interface ReadTask<T> {
+        T run(Connection con) throws SQLException;
+    }
+
+    /**
+     * Runs a query on one of the read-only connections, so reads proceed concurrently with each
+     * other and with the writer thread. Reads issued from a database task use the writer
+     * connection instead, so they see the uncommitted changes of their own transaction.
+     *
+     * @param task The query to run.
+     * @param <T>  The type of the result.
+     * @return The result of the query.
+     * @throws SQLException If the query fails.
+     */
+    public <T> T read(ReadTask<T> task) throws SQLException {
+        return read("read", task);
+    }
+
+    /**
+     * Runs a named query on one of the read-only connections (see {@link #read(ReadTask)}); the
+     * time spent waiting for a connection, the execution time and the rows read are recorded in
+     * {@link #metrics} under that name.
+     *
+     * @param operation The name of the operation, e.g. {@code "getProcesses"}.
+     * @param task      The query to run.
+     * @param <T>       The type of the result.
+     * @return The result of the query.
+     * @throws SQLException If the query fails.
+     */
+    public <T> T read(String operation, ReadTask<T> task) throws SQLException {
+        return read(operation, task, System.nanoTime());
+    }
+
+    private <T> T read(String operation, ReadTask<T> task, long queuedAt) throws SQLException {
+        if (closed.get() && Thread.currentThread() != dbThread) {
+            throw new SQLException("Database is closed");
+        }
+        if (readConnections == null || Thread.currentThread() == dbThread) {
+            return timed(operation, task, con, queuedAt);
+        }
+        Connection reader;
+        try {
+            reader = readConnections.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a read connection", e);
+        }
+        try {
+            return timed(operation, task, reader, queuedAt);
+        } finally {
+            readConnections.add(reader);
+        }
+    }
+
+    /**
+     * Runs a query on one of the read-only connections without blocking the caller.
+     *
+     * @param task The query to run.
+     * @param <T>  The type of the result.
+     * @return A future completed with the result of the query.
+     */
+    public <T> CompletableFuture<T> readAsync(ReadTask<T> task) {
+        return readAsync("read", task);
+    }
+
+    /**
+     * Runs a named query on one of the read-only connections without blocking the caller; the
+     * queue wait includes the time spent waiting for a reader thread.
+     *
+     * @param operation The name of the operation, e.g. {@code "getProcesses"}.
+     * @param task      The query to run.
+     * @param <T>       The type of the result.
+     * @return A future completed with the result of the query.
+     */
+    public <T> CompletableFuture<T> readAsync(String operation, ReadTask<T> task) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return read(operation, task, queuedAt);
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                }
+            }, readExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new SQLException("Database is closed", e));
+        }
+    }
+
+    /**
+     * Returns a future that completes on the JavaFX application thread with the same outcome as the
+     * given one, so controllers can update the UI directly from its callbacks.
+     *
+     * @param future The future to observe.
+     * @param <T>    The type of the result.
+     * @return A future completed on the JavaFX application thread.
+     */
+    public static <T> CompletableFuture<T> onFxThread(CompletableFuture<T> future) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenComplete((value, e) -> Platform.runLater(() -> {
+            if (e != null) {
+                result.completeExceptionally(e);
+            } else {
+                result.complete(value);
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * Registers an action to run once the transaction of the current database task commits; it is
+     * discarded if the task is rolled back. Called outside of a database task, the action runs
+     * immediately.
+     *
+     * @param action The action to run after commit.
+     */
+    public void afterCommit(Runnable action) {
+        if (Thread.currentThread() == dbThread) {
+            commitCallbacks.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Runs a query and records its wait, execution time and rows.
+     */
+    private <T> T timed(String operation, ReadTask<T> task, Connection connection, long queuedAt) throws SQLException {
+        long[] rows = rowCount.get();
+        long rowsBefore = rows[0];
+        long start = System.nanoTime();
+        try {
+            return task.run(connection);
+        } finally {
+            metrics.record(operation, start - queuedAt, System.nanoTime() - start, rows[0] - rowsBefore);
+        }
+    }
+
+    /**
+     * Logs what the database did since the previous call: the queue and statement cache counters
+     * and the latency summary of every operation executed. Nothing is logged if it was idle.
+     */
+    public void logMetrics() {
+        String summary = metrics.summary();
+        if (summary != null) {
+            Logger.info("Database: queued=" + getQueuedTaskCount() + " peak=" + getPeakQueuedTaskCount()
+                    + " merged=" + getMergedTaskCount() + " rejected=" + getRejectedTaskCount()
+                    + " statements hit/miss=" + getStatementCacheHits() + "/" + getStatementCacheMisses()
+                    + " | " + summary);
+        }
+    }
+
+    /**
+     * Wraps a connection so the statements prepared on it are cached by SQL text and reused.
+     *
+     * @param connection The connection to wrap.
+     * @return The caching connection.
+     */
+    private Connection cacheStatements(Connection connection) {
+        StatementCache cache = new StatementCache(connection, STATEMENT_CACHE_SIZE, rows -> rowCount.get()[0] += rows);
+        statementCaches.add(cache);
+        return cache.connection();
+    }
+
+    /**
+     * Gets the number of prepared statements reused from the statement caches of all connections.
+     *
+     * @return The number of cache hits.
+     */
+    public long getStatementCacheHits() {
+        long hits = 0;
+        for (StatementCache cache : statementCaches) {
+            hits += cache.getHits();
+        }
+        return hits;
+    }
+
+    /**
+     * Gets the number of statements that had to be prepared because no idle cached one existed.
+     *
+     * @return The number of cache misses.
+     */
+    public long getStatementCacheMisses() {
+        long misses = 0;
+        for (StatementCache cache : statementCaches) {
+            misses += cache.getMisses();
+        }
+        return misses;
+    }
+
+    /**
+     * Returns the usage journal of a database file, next to it. The journal of the application
+     * database keeps its original name.
+     */
+    private static Path journalPath(String url) {
+        if (URL.equals(url)) {
+            return Paths.get("usage.journal");
+        }
+        String file = url.substring("jdbc:sqlite:".length());
+        int query = file.indexOf('?');
+        return Paths.get((query == -1 ? file : file.substring(0, query)) + ".usage.journal");
+    }
+
+    /**
+     * Checks whether a JDBC URL designates an in-memory SQLite database.
+     */
+    private static boolean isMemory(String url) {
+        return url.contains(":memory:") || url.contains("mode=memory");
+    }
+
+    /**
+     * Opens the pool of read-only connections.
+     *
+     * @return The idle connections, or {@code null} if they could not be opened.
+     */
+    private BlockingQueue<Connection> openReadConnections() {
+        BlockingQueue<Connection> pool = new ArrayBlockingQueue<>(READ_POOL_SIZE);
+        Properties properties = new Properties();
+        properties.setProperty("open_mode", "1"); // SQLITE_OPEN_READONLY
+        properties.setProperty("busy_timeout", Integer.toString(BUSY_TIMEOUT_MILLIS));
+        try {
+            for (int i = 0; i < READ_POOL_SIZE; i++) {
+                pool.add(cacheStatements(DriverManager.getConnection(url, properties)));
+            }
+            return pool;
+        } catch (SQLException e) {
+            Logger.error("Unable to open read connections, reads will use the writer connection: " + e.getMessage());
+            for (Connection reader : pool) {
+                try {
+                    reader.close();
+                } catch (SQLException ignored) {
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Runs the given task and every task queued behind it, up to {@link #MAX_BATCH_SIZE} tasks or
+     * {@link #MAX_BATCH_MILLIS} milliseconds, in a single transaction. Each task runs under its own
+     * savepoint, so a failing task is rolled back without affecting the others, and the whole batch
+     * costs one commit. If the transaction is rolled back as a whole, the tasks that had succeeded
+     * run once more in a new transaction, and are dropped if that one fails too.
+     *
+     * @param first The task that started the batch.
+     */
+    private void runBatch(Runnable first) {
+        List<Runnable> succeeded = new ArrayList<>();
+        Throwable failure = runTransaction(first, null, succeeded);
+        if (failure == null || succeeded.isEmpty()) {
+            return;
+        }
+        Logger.warn("Database batch rolled back (" + failure.getMessage() + "), running its "
+                + succeeded.size() + " successful tasks again");
+        failure = runTransaction(null, succeeded.iterator(), new ArrayList<>());
+        if (failure != null) {
+            for (Runnable task : succeeded) {
+                Logger.error("Database task " + operationOf(task) + " dropped: " + failure.getMessage());
+                drop(task, failure);
+            }
+        }
+    }
+
+    /**
+     * Runs tasks in a single transaction and commits it, then runs the commit callbacks.
+     *
+     * @param first     The task that started the batch, or {@code null} when {@code retry} is given.
+     * @param retry     The tasks of a rolled back batch to run again, or {@code null} to take the
+     *                  tasks queued behind {@code first}, within the batch limits.
+     * @param succeeded Receives the tasks that ran without failing.
+     * @return {@code null} once committed, or why the transaction was rolled back as a whole.
+     */
+    private Throwable runTransaction(Runnable first, Iterator<Runnable> retry, List<Runnable> succeeded) {
+        try {
+            con.setAutoCommit(false);
+        } catch (SQLException e) {
+            Logger.error("Unable to start a database transaction: " + e.getMessage());
+            if (retry != null) {
+                return e;
+            }
+            runTask(first);
+            return null;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_BATCH_MILLIS);
+        int executed = 0;
+        Throwable failure = null;
+        Runnable task = retry == null ? first : retry.hasNext() ? retry.next() : null;
+        while (task != null) {
+            Outcome outcome = runInSavepoint(task);
+            executed++;
+            if (outcome == Outcome.ABORTED) {
+                failure = new SQLException("Database transaction aborted by " + operationOf(task));
+                break;
+            }
+            if (outcome == Outcome.SUCCEEDED) {
+                succeeded.add(task);
+            }
+            if (retry != null) {
+                task = retry.hasNext() ? retry.next() : null;
+            } else if (executed >= MAX_BATCH_SIZE || System.nanoTime() >= deadline) {
+                task = null;
+            } else {
+                task = taskQueue.poll(Database::runsInTransaction);
+            }
+        }
+
+        if (failure == null) {
+            try {
+                long start = System.nanoTime();
+                con.commit();
+                metrics.record("commit", 0, System.nanoTime() - start, executed);
+            } catch (SQLException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            Logger.error("Database batch of " + executed + " tasks rolled back: " + failure.getMessage());
+            try {
+                con.rollback();
+            } catch (SQLException ignored) {
+            }
+        }
+        try {
+            con.setAutoCommit(true);
+        } catch (SQLException e) {
+            Logger.error("Error restoring auto-commit: " + e.getMessage());
+        }
+
+        if (failure == null) {
+            for (Runnable callback : commitCallbacks) {
+                callback.run();
+            }
+        }
+        commitCallbacks.clear();
+        failureCallbacks.clear();
+        return failure;
+    }
+
+    /**
+     * How a task of a batch ended.
+     */
+    private enum Outcome {
+        /**
+         * The task ran and its changes are part of the transaction.
+         */
+        SUCCEEDED,
+
+        /**
+         * The task failed and only its own changes were rolled back.
+         */
+        FAILED,
+
+        /**
+         * The transaction itself could not be kept open; the task was dropped and the batch must
+         * be abandoned.
+         */
+        ABORTED
+    }
+
+    /**
+     * Runs a task of the current batch under a savepoint.
+     *
+     * @return How the task ended.
+     */
+    private Outcome runInSavepoint(Runnable task) {
+        int commitMark = commitCallbacks.size();
+        int failureMark = failureCallbacks.size();
+        Savepoint savepoint;
+        try {
+            savepoint = con.setSavepoint();
+        } catch (SQLException e) {
+            Logger.error("Unable to set a savepoint, dropping " + operationOf(task) + ": " + e.getMessage());
+            drop(task, e);
+            return Outcome.ABORTED;
+        }
+        try {
+            task.run();
+        } catch (Throwable e) {
+            Logger.error("Database task " + operationOf(task) + " failed: " + e);
+            commitCallbacks.subList(commitMark, commitCallbacks.size()).clear();
+            failureCallbacks.subList(failureMark, failureCallbacks.size()).clear();
+            // Errors escape the futures of the tasks; make sure nobody keeps waiting.
+            drop(task, e);
+            try {
+                con.rollback(savepoint);
+                con.releaseSavepoint(savepoint);
+                return Outcome.FAILED;
+            } catch (SQLException rollbackError) {
+                Logger.error("Unable to roll back a failed database task: " + rollbackError.getMessage());
+                return Outcome.ABORTED;
+            }
+        }
+        try {
+            con.releaseSavepoint(savepoint);
+            return Outcome.SUCCEEDED;
+        } catch (SQLException e) {
+            Logger.error("Unable to release a savepoint, dropping " + operationOf(task) + ": " + e.getMessage());
+            drop(task, e);
+            return Outcome.ABORTED;
+        }
+    }
+
+    /**
+     * Runs a single task outside of a batch, used when a transaction cannot be started and for
+     * standalone tasks.
+     */
+    private void runTask(Runnable task) {
+        try {
+            task.run();
+            for (Runnable callback : commitCallbacks) {
+                callback.run();
+            }
+        } catch (Throwable e) {
+            Logger.error("Database task " + operationOf(task) + " failed: " + e);
+            for (Consumer<Throwable> callback : failureCallbacks) {
+                callback.accept(e);
+            }
+            drop(task, e);
+        }
+        commitCallbacks.clear();
+        failureCallbacks.clear();
+    }
+
+    /**
+     * Rolls back whatever a failed batch left open and forgets its callbacks, so the writer can go
+     * on with the next task.
+     */
+    private void resetWriter() {
+        try {
+            if (!con.getAutoCommit()) {
+                con.rollback();
+                con.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            Logger.error("Unable to reset the database connection: " + e.getMessage());
+        }
+        commitCallbacks.clear();
+        failureCallbacks.clear();
+    }
+
+    /**
+     * Fails the future of a task that will not run or whose changes were discarded.
+     */
+    private static void drop(Runnable task, Throwable cause) {
+        if (task instanceof DroppableTask droppable) {
+            droppable.drop(cause);
+        }
+    }
+
+    /**
+     * Gets the operation name of a queued task, for logging.
+     */
+    private static String operationOf(Runnable task) {
+        return task instanceof DroppableTask droppable ? droppable.operation() : "task";
     }
 }
@@ -0,0 +1,162 @@
+package db;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code DatabaseMetrics} class records, for every named database operation, how long its
+ * tasks waited (for the database thread or a read connection), how long they ran and how many
+ * rows they read or wrote.
+ * <p>
+ * Recording is lock-free (see {@link Histogram}). {@link #snapshot()} returns the totals since
+ * startup and {@link #summary()} formats what happened since the previous summary as a single
+ * log line.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class DatabaseMetrics {
+    /**
+     * How often the monitoring pipeline logs the summary, in seconds.
+     */
+    public static final int SUMMARY_INTERVAL_SECONDS = 60;
+
+    /**
+     * The histograms of every operation, by name.
+     */
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    /**
+     * The snapshot taken by the previous {@link #summary()}.
+     */
+    private Map<String, OperationStats> lastSummary = Map.of();
+
+    /**
+     * Records one execution of an operation.
+     *
+     * @param operation      The name of the operation, e.g. {@code "getProcesses"}.
+     * @param queueWaitNanos Time between submission and the start of the execution.
+     * @param executionNanos Time spent executing.
+     * @param rows           Rows read or written.
+     */
+    public void record(String operation, long queueWaitNanos, long executionNanos, long rows) {
+        Operation op = operations.computeIfAbsent(operation, k -> new Operation());
+        op.queueWait.record(queueWaitNanos);
+        op.execution.record(executionNanos);
+        op.rows.record(rows);
+    }
+
+    /**
+     * Returns the statistics of every operation since startup.
+     *
+     * @return The statistics by operation name, sorted by name.
+     */
+    public Map<String, OperationStats> snapshot() {
+        Map<String, OperationStats> result = new TreeMap<>();
+        operations.forEach((name, op) -> result.put(name,
+                new OperationStats(name, op.queueWait.snapshot(), op.execution.snapshot(), op.rows.snapshot())));
+        return result;
+    }
+
+    /**
+     * Formats the operations executed since the previous summary, busiest first by total
+     * execution time.
+     *
+     * @return The summary line, or {@code null} if no operation was executed.
+     */
+    public synchronized String summary() {
+        Map<String, OperationStats> current = snapshot();
+        StringBuilder line = new StringBuilder();
+        current.values().stream()
+                .map(stats -> {
+                    OperationStats earlier = lastSummary.get(stats.getName());
+                    return earlier == null ? stats : stats.minus(earlier);
+                })
+                .filter(stats -> stats.getExecution().getCount() > 0)
+                .sorted((a, b) -> Double.compare(totalNanos(b), totalNanos(a)))
+                .forEach(stats -> line.append(line.length() == 0 ? "" : "; ").append(stats));
+        lastSummary = current;
+        return line.length() == 0 ? null : line.toString();
+    }
+
+    private static double totalNanos(OperationStats stats) {
+        return stats.getExecution().getMean() * stats.getExecution().getCount();
+    }
+
+    /**
+     * The histograms of one operation.
+     */
+    private static final class Operation {
+        final Histogram queueWait = new Histogram();
+        final Histogram execution = new Histogram();
+        final Histogram rows = new Histogram();
+    }
+
+    /**
+     * The statistics of one operation.
+     * <p>
+     * Instances of this class are immutable.
+     * </p>
+     */
+    public static class OperationStats {
+        private final String name;
+        private final Histogram.Snapshot queueWait;
+        private final Histogram.Snapshot execution;
+        private final Histogram.Snapshot rows;
+
+        OperationStats(String name, Histogram.Snapshot queueWait, Histogram.Snapshot execution, Histogram.Snapshot rows) {
+            this.name = name;
+            this.queueWait = queueWait;
+            this.execution = execution;
+            this.rows = rows;
+        }
+
+        OperationStats minus(OperationStats earlier) {
+            return new OperationStats(name, queueWait.minus(earlier.queueWait), execution.minus(earlier.execution),
+                    rows.minus(earlier.rows));
+        }
+
+        /**
+         * @return The name of the operation.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The time tasks waited before running, in nanoseconds.
+         */
+        public Histogram.Snapshot getQueueWait() {
+            return queueWait;
+        }
+
+        /**
+         * @return The time tasks spent running, in nanoseconds.
+         */
+        public Histogram.Snapshot getExecution() {
+            return execution;
+        }
+
+        /**
+         * @return The rows read or written per task.
+         */
+        public Histogram.Snapshot getRows() {
+            return rows;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s n=%d wait p50=%s p99=%s exec p50=%s p99=%s max=%s rows avg=%.1f",
+                    name, execution.getCount(),
+                    millis(queueWait.getValueAt(0.5)), millis(queueWait.getValueAt(0.99)),
+                    millis(execution.getValueAt(0.5)), millis(execution.getValueAt(0.99)), millis(execution.getMax()),
+                    rows.getMean());
+        }
+
+        private static String millis(long nanos) {
+            return String.format("%.2fms", nanos / 1_000_000.0);
+        }
+    }
+}
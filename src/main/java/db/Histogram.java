@@ -0,0 +1,163 @@
+package db;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The {@code Histogram} class records the distribution of non-negative values (durations in
+ * nanoseconds, row counts) without locks.
+ * <p>
+ * Values are counted in log-linear buckets, in the style of HDR histograms: every power of two is
+ * split into {@value #SUB_BUCKETS} linear sub-buckets, so any recorded value is known to within
+ * 12.5% while the whole {@code long} range fits in a few hundred counters. Recording is a single
+ * atomic increment; quantiles are computed from a {@link Snapshot}.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value; negative values are recorded as {@code 0}.
+     *
+     * @param value The value to record.
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        counts.incrementAndGet(index(value));
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Copies the current counts.
+     *
+     * @return A snapshot of the histogram.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, max.get());
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the smallest value counted in a bucket.
+     */
+    private static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << shift;
+    }
+
+    /**
+     * Returns the largest value counted in a bucket.
+     */
+    private static long upperBound(int index) {
+        return index + 1 < BUCKETS ? lowerBound(index + 1) - 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * An immutable copy of the counts of a {@code Histogram}.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long max;
+        private final long count;
+        private final double mean;
+
+        Snapshot(long[] counts, long max) {
+            this.counts = counts;
+            this.max = max;
+            long total = 0;
+            double sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                total += counts[i];
+                // The midpoint of each bucket approximates the values counted in it.
+                sum += counts[i] * ((double) lowerBound(i) + Math.min(upperBound(i), max)) / 2;
+            }
+            this.count = total;
+            this.mean = total == 0 ? 0 : sum / total;
+        }
+
+        /**
+         * Returns the values recorded since an earlier snapshot of the same histogram.
+         *
+         * @param earlier The earlier snapshot.
+         * @return The difference; its maximum is bounded by the highest bucket that changed.
+         */
+        public Snapshot minus(Snapshot earlier) {
+            long[] diff = new long[counts.length];
+            long diffMax = 0;
+            for (int i = 0; i < counts.length; i++) {
+                diff[i] = counts[i] - earlier.counts[i];
+                if (diff[i] > 0) {
+                    diffMax = Math.min(upperBound(i), max);
+                }
+            }
+            return new Snapshot(diff, diffMax);
+        }
+
+        /**
+         * @return The number of recorded values.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return The approximate mean of the recorded values.
+         */
+        public double getMean() {
+            return mean;
+        }
+
+        /**
+         * @return The largest recorded value.
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the value below which the given fraction of the recorded values fall.
+         *
+         * @param quantile The fraction, between {@code 0} and {@code 1}.
+         * @return The upper bound of the bucket holding the quantile, {@code 0} if empty.
+         */
+        public long getValueAt(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The {@code Migration} class describes one versioned change of the database schema, applied by
+ * the {@link MigrationRunner} when the stored schema version is lower than its own.
+ * <p>
+ * Instances of this class are immutable.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class Migration {
+    /**
+     * The change applied by a migration, inside the transaction of the migration.
+     */
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection con) throws SQLException;
+    }
+
+    /**
+     * The schema version reached once the migration is applied.
+     */
+    private final int version;
+
+    /**
+     * A short description, used in the logs.
+     */
+    private final String description;
+
+    /**
+     * The change to apply.
+     */
+    private final Step step;
+
+    /**
+     * Constructs a new {@code Migration}.
+     *
+     * @param version     The schema version reached once the migration is applied.
+     * @param description A short description, used in the logs.
+     * @param step        The change to apply.
+     */
+    public Migration(int version, String description, Step step) {
+        this.version = version;
+        this.description = description;
+        this.step = step;
+    }
+
+    /**
+     * Creates a migration that executes an SQL script.
+     *
+     * @param version     The schema version reached once the migration is applied.
+     * @param description A short description, used in the logs.
+     * @param script      The SQL statements to execute.
+     * @return The migration.
+     */
+    public static Migration sql(int version, String description, String script) {
+        return new Migration(version, description, con -> {
+            try (Statement stm = con.createStatement()) {
+                stm.executeUpdate(script);
+            }
+        });
+    }
+
+    /**
+     * Returns the schema version reached once the migration is applied.
+     *
+     * @return The version.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the description of the migration.
+     *
+     * @return The description.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Applies the migration.
+     *
+     * @param con The connection, inside the transaction of the migration.
+     * @throws SQLException If the change fails.
+     */
+    public void apply(Connection con) throws SQLException {
+        step.apply(con);
+    }
+}
@@ -0,0 +1,90 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.tinylog.Logger;
+
+/**
+ * The {@code MigrationRunner} class brings the database schema up to date.
+ * <p>
+ * The version of the schema is stored in {@code PRAGMA user_version}. Every migration with a
+ * higher version is applied in order, each in its own transaction together with the update of
+ * {@code user_version}, so a failed migration leaves the database at the previous version and is
+ * retried on the next start.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class MigrationRunner {
+    /**
+     * The migrations, ordered by version.
+     */
+    private final List<Migration> migrations;
+
+    /**
+     * Constructs a {@code MigrationRunner}.
+     *
+     * @param migrations The migrations, in any order; versions must be unique.
+     */
+    public MigrationRunner(List<Migration> migrations) {
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort(Comparator.comparingInt(Migration::getVersion));
+    }
+
+    /**
+     * Applies every migration newer than the schema version of the database.
+     *
+     * @param con A connection in auto-commit mode.
+     * @return The schema version after migrating.
+     * @throws SQLException If a migration fails; the migrations applied before it are kept.
+     */
+    public int migrate(Connection con) throws SQLException {
+        int current = getVersion(con);
+        int latest = migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+        if (current > latest) {
+            Logger.warn("Database schema version " + current + " is newer than this application (" + latest + ")");
+            return current;
+        }
+        for (Migration migration : migrations) {
+            if (migration.getVersion() <= current) {
+                continue;
+            }
+            Logger.info("Migrating database schema to version " + migration.getVersion() + ": " + migration.getDescription());
+            con.setAutoCommit(false);
+            try (Statement stm = con.createStatement()) {
+                migration.apply(con);
+                stm.execute("PRAGMA user_version = " + migration.getVersion());
+                con.commit();
+            } catch (SQLException | RuntimeException e) {
+                con.rollback();
+                Logger.error("Database migration " + migration.getVersion() + " failed: " + e.getMessage());
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+            }
+            current = migration.getVersion();
+        }
+        return current;
+    }
+
+    /**
+     * Reads the schema version stored in the database.
+     *
+     * @param con The connection.
+     * @return The value of {@code PRAGMA user_version}, {@code 0} for a new database.
+     * @throws SQLException If the version cannot be read.
+     */
+    public static int getVersion(Connection con) throws SQLException {
+        try (Statement stm = con.createStatement();
+             ResultSet rs = stm.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code ProcessNameDictionary} class interns process names into the integer IDs of the
+ * {@code ProcessNames} table, so usage rows and in-memory counters are keyed by an {@code int}
+ * instead of the full name.
+ * <p>
+ * The dictionary is loaded once at startup. A name seen for the first time gets the next free ID
+ * in memory, without touching the database; the application is the only writer, so IDs never
+ * collide. Every write that stores an ID first inserts its name with
+ * {@link #insertNames(Connection, Collection)} in the same transaction, so a usage row never
+ * references a name that was not written.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class ProcessNameDictionary {
+    /**
+     * The ID of every known name.
+     */
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    /**
+     * The name of every known ID.
+     */
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * The highest ID handed out so far.
+     */
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    /**
+     * Loads every name stored in the {@code ProcessNames} table.
+     *
+     * @param con The connection to read from.
+     * @throws SQLException If the table cannot be read.
+     */
+    public void load(Connection con) throws SQLException {
+        try (Statement stm = con.createStatement();
+             ResultSet rs = stm.executeQuery("SELECT ID, NAME FROM ProcessNames")) {
+            while (rs.next()) {
+                int id = rs.getInt("ID");
+                String name = rs.getString("NAME");
+                ids.put(name, id);
+                names.put(id, name);
+                lastId.accumulateAndGet(id, Math::max);
+            }
+        }
+    }
+
+    /**
+     * Returns the ID of a name, assigning the next free one if the name is new.
+     *
+     * @param name The process name.
+     * @return The ID of the name.
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        return ids.computeIfAbsent(name, n -> {
+            int newId = lastId.incrementAndGet();
+            names.put(newId, n);
+            return newId;
+        });
+    }
+
+    /**
+     * Returns the ID of a name without assigning one.
+     *
+     * @param name The process name.
+     * @return The ID of the name, or {@code -1} if it is unknown.
+     */
+    public int find(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the name of an ID.
+     *
+     * @param id The ID of the name.
+     * @return The process name, or {@code null} if the ID is unknown.
+     */
+    public String nameOf(int id) {
+        return names.get(id);
+    }
+
+    /**
+     * Writes the given names to the {@code ProcessNames} table, skipping those already stored.
+     * Must be called in the transaction of the write that uses their IDs.
+     *
+     * @param con        The writer connection.
+     * @param namesToAdd The process names.
+     * @throws SQLException If the names cannot be written.
+     */
+    public void insertNames(Connection con, Collection<String> namesToAdd) throws SQLException {
+        try (PreparedStatement stmt = con.prepareStatement("INSERT OR IGNORE INTO ProcessNames (ID, NAME) VALUES (?, ?)")) {
+            for (String name : namesToAdd) {
+                stmt.setInt(1, intern(name));
+                stmt.setString(2, name);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+}
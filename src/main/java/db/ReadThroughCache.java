@@ -0,0 +1,132 @@
+package db;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The {@code ReadThroughCache} class keeps the result of a query per key until the data behind it
+ * is written, so configuration that only changes when an admin edits it (users, rules, events)
+ * is not queried again on every monitoring tick.
+ * <p>
+ * Readers get the cached value without locking; the cached values must be immutable. Writes call
+ * {@link #invalidate()} once their transaction commits (see {@link Database#afterCommit(Runnable)}),
+ * which drops every entry and bumps the version. A load that started before an invalidation
+ * returns its result but does not cache it, so a stale value is never put back.
+ * </p>
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the cached values.
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class ReadThroughCache<K, V> {
+    /**
+     * Loads the value of a key.
+     *
+     * @param <K> The type of the keys.
+     * @param <V> The type of the values.
+     */
+    @FunctionalInterface
+    public interface Loader<K, V> {
+        V load(K key) throws SQLException;
+    }
+
+    private final Map<K, V> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on every invalidation.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Returns the cached value of a key, loading it on a miss. Concurrent misses are serialized so
+     * the query runs once.
+     *
+     * @param key    The key.
+     * @param loader Loads the value; it must return an immutable value.
+     * @return The value.
+     * @throws SQLException If the value has to be loaded and the query fails.
+     */
+    public V get(K key, Loader<K, V> loader) throws SQLException {
+        V cached = entries.get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        synchronized (this) {
+            cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+            misses.incrementAndGet();
+            long loadVersion = version.get();
+            return put(key, loadVersion, loader.load(key));
+        }
+    }
+
+    /**
+     * Returns the cached value of a key, loading it without blocking the caller on a miss.
+     *
+     * @param key    The key.
+     * @param loader Starts loading the value; it must complete with an immutable value.
+     * @return A future completed with the value.
+     */
+    public CompletableFuture<V> getAsync(K key, Function<K, CompletableFuture<V>> loader) {
+        V cached = entries.get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+        misses.incrementAndGet();
+        long loadVersion = version.get();
+        return loader.apply(key).thenApply(value -> put(key, loadVersion, value));
+    }
+
+    /**
+     * Drops every cached value.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of reads answered from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of reads that had to query the database.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Caches a loaded value unless an invalidation happened since the load started.
+     */
+    private V put(K key, long loadVersion, V value) {
+        if (version.get() == loadVersion) {
+            entries.put(key, value);
+            // An invalidation between the check and the put must not leave the stale value behind.
+            if (version.get() != loadVersion) {
+                entries.remove(key, value);
+            }
+        }
+        return value;
+    }
+}
@@ -9,11 +9,13 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.KeySpec;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
 
 public class AdminRepository {
     private Database db;
@@ -29,21 +31,55 @@ public class AdminRepository {
      * @return {@code true} if the password is correct or was set, {@code false} otherwise.
      */
     public boolean checkPassword(String pass) {
-        try (PreparedStatement stmt = db.getCon().prepareStatement("SELECT * FROM ADMIN")) {
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                String storedEncoded = rs.getString("PASSWORD");
-                byte[] combined = Base64.getDecoder().decode(storedEncoded);
-                HashedPassword stored = HashedPassword.fromBytes(combined);
-                KeySpec spec = new PBEKeySpec(pass.toCharArray(), stored.getSalt(), 65536, 128);
-                SecretKeyFactory f = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
-                byte[] computedHash = f.generateSecret(spec).getEncoded();
-                return Arrays.equals(stored.getHash(), computedHash);
+        try {
+            String storedEncoded = db.read("checkPassword", AdminRepository::loadPassword);
+            if (storedEncoded != null) {
+                return matches(storedEncoded, pass);
             } else {
                 addPassword(pass);
                 return true;
             }
-        } catch (SQLException | NoSuchAlgorithmException | InvalidKeySpecException e) {
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Checks the admin password against the stored hash, or sets it if not present, without
+     * blocking the caller. Use {@link Database#onFxThread(CompletableFuture)} to react on the
+     * JavaFX application thread.
+     *
+     * @param pass The password to check or set.
+     * @return A future completed with {@code true} if the password is correct or was set.
+     */
+    public CompletableFuture<Boolean> checkPasswordAsync(String pass) {
+        return db.readAsync("checkPassword", AdminRepository::loadPassword).thenCompose(storedEncoded -> {
+            if (storedEncoded != null) {
+                return CompletableFuture.completedFuture(matches(storedEncoded, pass));
+            }
+            return addPasswordAsync(pass).thenApply(v -> true);
+        });
+    }
+
+    private static String loadPassword(Connection con) throws SQLException {
+        try (PreparedStatement stmt = con.prepareStatement("SELECT * FROM ADMIN");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getString("PASSWORD") : null;
+        }
+    }
+
+    /**
+     * Compares a password with an encoded salted hash.
+     */
+    private static boolean matches(String storedEncoded, String pass) {
+        try {
+            byte[] combined = Base64.getDecoder().decode(storedEncoded);
+            HashedPassword stored = HashedPassword.fromBytes(combined);
+            KeySpec spec = new PBEKeySpec(pass.toCharArray(), stored.getSalt(), 65536, 128);
+            SecretKeyFactory f = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
+            byte[] computedHash = f.generateSecret(spec).getEncoded();
+            return Arrays.equals(stored.getHash(), computedHash);
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
             throw new RuntimeException(e);
         }
     }
@@ -76,16 +112,25 @@ public class AdminRepository {
      *
      * @param pass The password to add.
      */
-    public synchronized void addPassword(String pass) {
-        db.executeDatabaseTask(() -> {
+    public void addPassword(String pass) {
+        addPasswordAsync(pass);
+    }
+
+    /**
+     * Adds a new admin password to the database, securely hashed.
+     *
+     * @param pass The password to add.
+     * @return A future completed once the password is committed.
+     */
+    public CompletableFuture<Void> addPasswordAsync(String pass) {
+        return db.submitDatabaseTask("addPassword", () -> {
             try (PreparedStatement stmt = db.getCon().prepareStatement("INSERT INTO ADMIN(PASSWORD) VALUES(?)")) {
                 HashedPassword hp = hashPassword(pass);
                 String encoded = Base64.getEncoder().encodeToString(hp.toBytes());
                 stmt.setString(1, encoded);
                 stmt.executeUpdate();
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
             }
+            return null;
         });
     }
 
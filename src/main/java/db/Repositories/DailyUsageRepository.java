@@ -6,10 +6,13 @@ import Processes.UserInfo;
 import db.Database;
 import org.tinylog.Logger;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 public class DailyUsageRepository {
     private Database db;
@@ -24,16 +27,28 @@ public class DailyUsageRepository {
      *
      * @param info The {@link DailyUsageInfo} object containing daily usage details.
      */
-    public synchronized void addDailyUsage(DailyUsageInfo info) {
-        db.executeDatabaseTask(() -> {
+    public void addDailyUsage(DailyUsageInfo info) {
+        addDailyUsageAsync(info);
+    }
+
+    /**
+     * Adds a new daily usage record to the database.
+     *
+     * @param info The {@link DailyUsageInfo} object containing daily usage details.
+     * @return A future completed with the ID of the new record once the insert is committed.
+     */
+    public CompletableFuture<Integer> addDailyUsageAsync(DailyUsageInfo info) {
+        return db.submitDatabaseTask("addDailyUsage", () -> {
             // User ID, Date, Time
-            try (PreparedStatement stmt = db.getCon().prepareStatement("INSERT INTO DailyUsage(USER_ID,DATE,USAGE_SECONDS) VALUES(?,?,?)")) {
+            try (PreparedStatement stmt = db.getCon().prepareStatement(
+                    "INSERT INTO DailyUsage(USER_ID,DATE,USAGE_SECONDS) VALUES(?,?,?)", Statement.RETURN_GENERATED_KEYS)) {
                 stmt.setInt(1,info.getUserId());
                 stmt.setString(2,info.getDate().toString());
                 stmt.setInt(3,info.getTimeSpent());
                 stmt.executeUpdate();
-            } catch(SQLException e) {
-                throw new RuntimeException(e);
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    return keys.next() ? keys.getInt(1) : -1;
+                }
             }
         });
     }
@@ -45,9 +60,133 @@ public class DailyUsageRepository {
      * @return A list of {@link ProcessInfo} objects with usage time for each tracked process.
      */
     public ArrayList<DailyUsageInfo> getDailyUsage(UserInfo user) {
+        try {
+            return db.read("getDailyUsage", con -> loadDailyUsage(con, user));
+        } catch (SQLException e) {
+            Logger.error("Error retrieving usage tracking: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Retrieves all daily usage records for a specific user without blocking the caller.
+     *
+     * @param user The {@link UserInfo} object representing the user.
+     * @return A future completed with the daily usage records of the user.
+     */
+    public CompletableFuture<ArrayList<DailyUsageInfo>> getDailyUsageAsync(UserInfo user) {
+        return db.readAsync("getDailyUsage", con -> loadDailyUsage(con, user));
+    }
+
+    /**
+     * Checks whether a daily usage record exists for a user and date.
+     *
+     * @param user The {@link UserInfo} object representing the user.
+     * @param date The date, in ISO format.
+     * @return {@code true} if the record exists.
+     */
+    public boolean hasDailyUsage(UserInfo user, String date) {
+        try {
+            return db.read("hasDailyUsage", con -> {
+                try (PreparedStatement stmt = con.prepareStatement(
+                        "SELECT 1 FROM DailyUsage WHERE USER_ID = ? AND DATE = ?")) {
+                    stmt.setInt(1, user.getId());
+                    stmt.setString(2, date);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        return rs.next();
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            Logger.error("Error checking daily usage: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Retrieves the usage time recorded for a user over all days, including the days already
+     * compacted into monthly totals.
+     *
+     * @param user The {@link UserInfo} object representing the user.
+     * @return The total usage time in seconds.
+     */
+    public long getTotalUsageSeconds(UserInfo user) {
+        try {
+            return db.read("getTotalUsageSeconds", con -> {
+                try (PreparedStatement stmt = con.prepareStatement(
+                        "SELECT (SELECT COALESCE(SUM(USAGE_SECONDS), 0) FROM DailyUsage WHERE USER_ID = ?)"
+                                + " + (SELECT COALESCE(SUM(USAGE_SECONDS), 0) FROM MonthlyUsage WHERE USER_ID = ?)")) {
+                    stmt.setInt(1, user.getId());
+                    stmt.setInt(2, user.getId());
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        return rs.next() ? rs.getLong(1) : 0L;
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            Logger.error("Error retrieving total usage: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Retrieves the daily usage records of every user dated before the given day.
+     *
+     * @param before The first day not retrieved, in ISO format.
+     * @return The records, ordered by user and date.
+     * @throws SQLException If the query fails.
+     */
+    public ArrayList<DailyUsageInfo> getDailyUsageBefore(String before) throws SQLException {
+        return db.read("getDailyUsageBefore", con -> {
+            ArrayList<DailyUsageInfo> resArray = new ArrayList<>();
+            try (PreparedStatement stmt = con.prepareStatement(
+                    "SELECT USER_ID, DATE, USAGE_SECONDS FROM DailyUsage WHERE DATE < ? ORDER BY USER_ID, DATE")) {
+                stmt.setString(1, before);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        resArray.add(new DailyUsageInfo(rs.getInt("USER_ID"), rs.getString("DATE"), rs.getInt("USAGE_SECONDS")));
+                    }
+                }
+            }
+            return resArray;
+        });
+    }
+
+    /**
+     * Adds the daily usage records dated before the given day to the monthly totals of their
+     * users and deletes them, in one transaction.
+     *
+     * @param before       The first day not compacted, in ISO format.
+     * @param expectedRows The number of records the caller archived; if another number would be
+     *                     compacted, nothing is changed and the future fails.
+     * @return A future completed with the number of compacted records once the change is committed.
+     */
+    public CompletableFuture<Integer> compactDailyUsageAsync(String before, int expectedRows) {
+        return db.submitDatabaseTask("compactDailyUsage", () -> {
+            try (PreparedStatement rollUp = db.getCon().prepareStatement(
+                    "INSERT INTO MonthlyUsage (USER_ID, MONTH, USAGE_SECONDS, DAYS)"
+                            + " SELECT USER_ID, substr(DATE, 1, 7), SUM(USAGE_SECONDS), COUNT(*) FROM DailyUsage"
+                            + " WHERE DATE < ? GROUP BY USER_ID, substr(DATE, 1, 7)"
+                            + " ON CONFLICT(USER_ID, MONTH) DO UPDATE SET USAGE_SECONDS = USAGE_SECONDS + excluded.USAGE_SECONDS,"
+                            + " DAYS = DAYS + excluded.DAYS");
+                 PreparedStatement delete = db.getCon().prepareStatement(
+                         "DELETE FROM DailyUsage WHERE DATE < ?")) {
+                rollUp.setString(1, before);
+                rollUp.executeUpdate();
+                delete.setString(1, before);
+                int deleted = delete.executeUpdate();
+                if (deleted != expectedRows) {
+                    throw new SQLException("Expected to compact " + expectedRows + " daily usage records, found " + deleted);
+                }
+                return deleted;
+            }
+        });
+    }
+
+    private static ArrayList<DailyUsageInfo> loadDailyUsage(Connection con, UserInfo user) throws SQLException {
         ArrayList<DailyUsageInfo> resArray = new ArrayList<>();
-        try (PreparedStatement checkQuery = db.getCon().prepareStatement(
-                "SELECT * FROM DailyUsage WHERE USER_ID = ?")) {
+        try (PreparedStatement checkQuery = con.prepareStatement(
+                "SELECT * FROM DailyUsage WHERE USER_ID = ? ORDER BY DATE")) {
             checkQuery.setInt(1, user.getId());
             try (ResultSet rs = checkQuery.executeQuery()) {
                 while (rs.next()) {
@@ -58,11 +197,7 @@ public class DailyUsageRepository {
                     resArray.add(dailyInfo);
                 }
             }
-        } catch (SQLException e) {
-            Logger.error("Error retrieving usage tracking: " + e.getMessage());
-            throw new RuntimeException(e);
         }
-
         return resArray;
     }
 }
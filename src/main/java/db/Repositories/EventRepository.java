@@ -2,39 +2,55 @@ package db.Repositories;
 
 import Events.EventInfo;
 import db.Database;
+import db.ReadThroughCache;
+import db.Stores.EventStore;
 import org.tinylog.Logger;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-public class EventRepository {
+public class EventRepository implements EventStore {
     private Database db;
 
+    /**
+     * The events of every user, as returned by {@link #getEvents(int)}.
+     */
+    private final ReadThroughCache<Integer, List<EventInfo>> eventsCache = new ReadThroughCache<>();
+
     public EventRepository(Database database) {
         this.db = database;
     }
 
     /**
      * Adds a new event for a user if it does not already exist.
-     * This operation is performed asynchronously.
+     * The ID of the new event is read from the generated keys of the insert.
      *
      * @param evt The {@link EventInfo} object containing event details.
+     * @return A future completed with the ID of the new event, or {@code -1} if it already existed,
+     *         once the insert is committed.
      */
-    public void addEvent(EventInfo evt) {
-        db.executeDatabaseTask(() -> {
+    @Override
+    public CompletableFuture<Integer> addEventAsync(EventInfo evt) {
+        return db.submitDatabaseTask("addEvent", () -> {
             try (PreparedStatement stmt = db.getCon().prepareStatement("SELECT 1 FROM Events WHERE EVENT_NAME = ? AND USER_ID = ?")) {
                 stmt.setString(1, evt.getEvent_name());
                 stmt.setInt(2, evt.getUser_id());
                 try (ResultSet rs = stmt.executeQuery()) {
                     if (rs.next()) {
                         Logger.error("Event already exists.");
-                        return;
+                        return -1;
                     }
                 }
                 try (PreparedStatement insertStmt = db.getCon().prepareStatement(
-                        "INSERT INTO Events (USER_ID, EVENT_NAME,TIME, BEFORE_AT, REPEAT,CREATED_AT) VALUES (?, ?, ?,?,?,?)")) {
+                        "INSERT INTO Events (USER_ID, EVENT_NAME,TIME, BEFORE_AT, REPEAT,CREATED_AT) VALUES (?, ?, ?,?,?,?)",
+                        Statement.RETURN_GENERATED_KEYS)) {
                     insertStmt.setInt(1, evt.getUser_id());
                     insertStmt.setString(2, evt.getEvent_name());
                     insertStmt.setInt(3, evt.getTime());
@@ -42,92 +58,127 @@ public class EventRepository {
                     insertStmt.setInt(5, evt.isRepeat() ? 1 : 0);
                     insertStmt.setLong(6, evt.getCreated_at());
                     insertStmt.executeUpdate();
+                    invalidateEvents();
                     System.out.println("Event added: " + evt.getEvent_name());
+                    try (ResultSet keys = insertStmt.getGeneratedKeys()) {
+                        return keys.next() ? keys.getInt(1) : -1;
+                    }
                 }
             } catch (SQLException e) {
                 Logger.error("Error adding Event: " + e.getMessage());
-                throw new RuntimeException(e);
+                throw e;
             }
         });
     }
 
     /**
      * Removes an event from the database.
-     * This operation is performed asynchronously.
      *
      * @param evt The {@link EventInfo} object representing the event to remove.
+     * @return A future completed once the removal is committed.
      */
-    public synchronized void removeEvent(EventInfo evt) {
-        db.executeDatabaseTask(() -> {
-            try {
-                PreparedStatement checkQuery = db.getCon().prepareStatement("DELETE FROM Events WHERE ID=?");
+    @Override
+    public CompletableFuture<Void> removeEventAsync(EventInfo evt) {
+        return db.submitDatabaseTask("removeEvent", () -> {
+            try (PreparedStatement checkQuery = db.getCon().prepareStatement("DELETE FROM Events WHERE ID=?")) {
                 checkQuery.setInt(1, evt.getId());
                 checkQuery.executeUpdate();
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
+                invalidateEvents();
             }
+            return null;
         });
     }
 
     /**
      * Retrieves all events for a specific user.
+     * The events are cached until an event of any user is written.
      * This method is thread-safe.
      *
      * @param userId The ID of the user.
-     * @return A list of {@link EventInfo} objects for the user.
+     * @return An unmodifiable list of {@link EventInfo} objects for the user.
+     */
+    @Override
+    public List<EventInfo> getEvents(int userId) {
+        try {
+            return eventsCache.get(userId, id -> db.read("getEvents", con -> loadEvents(con, id)));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error retrieving events: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Retrieves all events for a specific user without blocking the caller.
+     *
+     * @param userId The ID of the user.
+     * @return A future completed with an unmodifiable list of the events of the user.
      */
-    public synchronized ArrayList<EventInfo> getEvents(int userId) {
+    @Override
+    public CompletableFuture<List<EventInfo>> getEventsAsync(int userId) {
+        return eventsCache.getAsync(userId, id -> db.readAsync("getEvents", con -> loadEvents(con, id)));
+    }
+
+    private static List<EventInfo> loadEvents(Connection con, int userId) throws SQLException {
         ArrayList<EventInfo> events = new ArrayList<>();
-        try (PreparedStatement stmt = db.getCon().prepareStatement("SELECT * FROM Events WHERE USER_ID = ?")) {
+        try (PreparedStatement stmt = con.prepareStatement("SELECT * FROM Events WHERE USER_ID = ?")) {
             stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                EventInfo evt = new EventInfo(
-                        rs.getInt("ID"),
-                        rs.getInt("USER_ID"),
-                        rs.getString("EVENT_NAME"),
-                        rs.getInt("TIME"),
-                        rs.getInt("BEFORE_AT") == 1,
-                        rs.getInt("REPEAT") == 1,
-                        rs.getLong("CREATED_AT")
-                );
-                events.add(evt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    EventInfo evt = new EventInfo(
+                            rs.getInt("ID"),
+                            rs.getInt("USER_ID"),
+                            rs.getString("EVENT_NAME"),
+                            rs.getInt("TIME"),
+                            rs.getInt("BEFORE_AT") == 1,
+                            rs.getInt("REPEAT") == 1,
+                            rs.getLong("CREATED_AT")
+                    );
+                    events.add(evt);
+                }
             }
-        } catch (SQLException e) {
-            throw new RuntimeException("Error retrieving events: " + e.getMessage(), e);
         }
-        return events;
+        return Collections.unmodifiableList(events);
+    }
+
+    /**
+     * Drops the cached events once the current write commits.
+     */
+    void invalidateEvents() {
+        db.afterCommit(eventsCache::invalidate);
     }
 
     /**
      * Sets the creation time for an event in the database.
-     * This operation is performed asynchronously.
      *
      * @param evt        The {@link EventInfo} object representing the event to update.
      * @param created_at The new creation time to set.
+     * @return A future completed once the update is committed.
      */
-    public void setEventTime(EventInfo evt, long created_at) {
-        db.executeDatabaseTask(() -> {
+    @Override
+    public CompletableFuture<Void> setEventTimeAsync(EventInfo evt, long created_at) {
+        return db.submitDatabaseTask("setEventTime", () -> {
             try (PreparedStatement stmt = db.getCon().prepareStatement("UPDATE Events SET CREATED_AT = ? WHERE ID = ?")) {
                 stmt.setInt(1, (int)created_at);
                 stmt.setInt(2, evt.getId());
                 stmt.executeUpdate();
+                invalidateEvents();
                 Logger.info("Event creation time updated: " + evt.getEvent_name());
             } catch (SQLException e) {
                 Logger.error("Error updating Event: " + e.getMessage());
-                throw new RuntimeException(e);
+                throw e;
             }
+            return null;
         });
     }
 
     /**
      * Updates an existing event in the database.
-     * This operation is performed asynchronously.
-     *Add commentMore actions
+     *
      * @param evt The {@link EventInfo} object containing updated event data.
+     * @return A future completed once the update is committed.
      */
-    public void updateEvent(EventInfo evt) {
-        db.executeDatabaseTask(() -> {
+    @Override
+    public CompletableFuture<Void> updateEventAsync(EventInfo evt) {
+        return db.submitDatabaseTask("updateEvent", () -> {
             try (PreparedStatement stmt = db.getCon().prepareStatement(
                     "UPDATE Events SET EVENT_NAME = ?, TIME = ?,BEFORE_AT = ?, REPEAT = ? WHERE ID = ?")) {
                 stmt.setString(1, evt.getEvent_name());
@@ -136,11 +187,13 @@ public class EventRepository {
                 stmt.setInt(3, evt.isBefore_at() ? 1 : 0);
                 stmt.setInt(5, evt.getId());
                 stmt.executeUpdate();
+                invalidateEvents();
                 Logger.info("Event updated: " + evt.getEvent_name());
             } catch (SQLException e) {
                 Logger.error("Error updating Event: " + e.getMessage());
-                throw new RuntimeException(e);
+                throw e;
             }
+            return null;
         });
     }
 }
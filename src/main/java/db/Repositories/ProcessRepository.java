@@ -1,76 +1,141 @@
 package db.Repositories;
 
 import Processes.ProcessInfo;
-import Processes.UserInfo;
 import db.Database;
+import db.ReadThroughCache;
+import db.Stores.RuleStore;
 import org.tinylog.Logger;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
-public class ProcessRepository {
+public class ProcessRepository implements RuleStore {
     private Database db;
 
+    /**
+     * Queue key of the time flush batch waiting for the database thread.
+     */
+    private static final String FLUSH_KEY = "Processes.flush";
+
+    /**
+     * The rule set of every user, as returned by {@link #getProcesses(int)}.
+     */
+    private final ReadThroughCache<Integer, List<ProcessInfo>> rulesCache = new ReadThroughCache<>();
+
     public ProcessRepository(Database database) {
         this.db = database;
     }
 
     /**
-     * Increments the total tracked time for a process by 2 sedb.getCon()ds.
-     * This operation is performed asynchronously.
+     * Increments the total tracked time for a process by the given number of seconds.
      *
      * @param process_id The ID of the process to update.
+     * @param seconds    The elapsed time to add, in seconds.
+     * @return A future completed once the update is committed.
      */
-    public void updateTime(int process_id) {
-        db.executeDatabaseTask(() -> {
+    @Override
+    public CompletableFuture<Void> updateTimeAsync(int process_id, int seconds) {
+        // Increments of the same process still waiting in the queue are merged into one update.
+        return db.submitCoalescingTask("updateTime", List.of("Processes", process_id), seconds, Integer::sum, total -> {
             try (PreparedStatement stmt = db.getCon().prepareStatement(
-                    "UPDATE Processes SET TOTAL_TIME=TOTAL_TIME+2 WHERE ID = ?")) {
-                stmt.setInt(1, process_id);
+                    "UPDATE Processes SET TOTAL_TIME=TOTAL_TIME+? WHERE ID = ?")) {
+                stmt.setInt(1, total);
+                stmt.setInt(2, process_id);
                 stmt.executeUpdate();
+                invalidateRules();
             } catch (SQLException e) {
                 Logger.error("Error updating process time: " + e.getMessage());
-                throw new RuntimeException(e);
+                throw e;
             }
         });
     }
 
     /**
-     * Sets or updates the time limit for a given process.
-     * If a time limit already exists, it is updated; otherwise, a new record is inserted.
+     * Adds accumulated time to the total of several processes with a single batched statement.
+     * Each {@link ProcessInfo} carries the process ID and the number of seconds to add in its total time.
      * This operation is performed asynchronously.
      *
-     * @param prs The {@link ProcessInfo} object db.getCon()taining process ID and time limit.
+     * @param deltas The processes and the time to add to each of them.
+     * @return A future completed with the number of processes updated once the batch commits.
      */
-    public void setTimeLimit(ProcessInfo prs) {
-        db.executeDatabaseTask(() -> {
-            try (PreparedStatement checkStmt = db.getCon().prepareStatement(
-                    "Select * from Timelimits  WHERE PROCESS_ID= ?")) {
-                checkStmt.setInt(1, prs.getId());
-                try (ResultSet rs = checkStmt.executeQuery()) {
-                    if (rs.next()) {
-                        try (PreparedStatement updateStmt = db.getCon().prepareStatement(
-                                "UPDATE Timelimits SET TIME_LIMIT = ? WHERE PROCESS_ID= ?")) {
-                            updateStmt.setInt(1, prs.getTime_limit());
-                            updateStmt.setInt(2, prs.getId());
-                            updateStmt.executeUpdate();
-                            return;
-                        }
-                    }
+    @Override
+    public CompletableFuture<Integer> addTimes(List<ProcessInfo> deltas) {
+        // Flushes queued behind a stalled writer are summed into the one waiting batch.
+        return db.submitCoalescingTask("addTimes", FLUSH_KEY, deltas, ProcessRepository::sumTimes, batch -> {
+            try (PreparedStatement stmt = db.getCon().prepareStatement(
+                    "UPDATE Processes SET TOTAL_TIME=TOTAL_TIME+? WHERE ID = ?")) {
+                for (ProcessInfo prs : batch) {
+                    stmt.setInt(1, prs.getTotal_time());
+                    stmt.setInt(2, prs.getId());
+                    stmt.addBatch();
                 }
+                stmt.executeBatch();
+            }
+            invalidateRules();
+        }).thenApply(v -> deltas.size());
+    }
+
+    /**
+     * Sums two batches of time deltas by process ID, without changing either batch.
+     */
+    private static List<ProcessInfo> sumTimes(List<ProcessInfo> a, List<ProcessInfo> b) {
+        Map<Integer, ProcessInfo> sums = new LinkedHashMap<>();
+        for (List<ProcessInfo> batch : List.of(a, b)) {
+            for (ProcessInfo prs : batch) {
+                sums.merge(prs.getId(), new ProcessInfo(prs.getId(), 0, "", prs.getTotal_time()),
+                        (x, y) -> new ProcessInfo(x.getId(), 0, "", x.getTotal_time() + y.getTotal_time()));
+            }
+        }
+        return new ArrayList<>(sums.values());
+    }
+
+    /**
+     * Sets or updates the time limit for a given process.
+     *
+     * @param prs The {@link ProcessInfo} object containing process ID and time limit.
+     * @return A future completed once the time limit is committed.
+     */
+    @Override
+    public CompletableFuture<Void> setTimeLimitAsync(ProcessInfo prs) {
+        return db.submitDatabaseTask("setTimeLimit", () -> {
+            try {
+                writeTimeLimit(prs.getId(), prs.getTime_limit());
+            } catch (SQLException e) {
+                Logger.error("Error setting time limit: " + e.getMessage());
+                throw e;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Inserts or updates the time limit row of a process. Must run on the database thread.
+     */
+    private void writeTimeLimit(int process_id, int time_limit) throws SQLException {
+        try (PreparedStatement updateStmt = db.getCon().prepareStatement(
+                "UPDATE Timelimits SET TIME_LIMIT = ? WHERE PROCESS_ID= ?")) {
+            updateStmt.setInt(1, time_limit);
+            updateStmt.setInt(2, process_id);
+            if (updateStmt.executeUpdate() == 0) {
                 try (PreparedStatement insertStmt = db.getCon().prepareStatement(
                         "INSERT INTO Timelimits (PROCESS_ID, TIME_LIMIT) VALUES (?, ? )")) {
-                    insertStmt.setInt(1, prs.getId());
-                    insertStmt.setInt(2, prs.getTime_limit());
+                    insertStmt.setInt(1, process_id);
+                    insertStmt.setInt(2, time_limit);
                     insertStmt.executeUpdate();
-                    Logger.info("Time limit added for PID: " + prs.getId() + " with time limit: " + prs.getTime_limit());
+                    Logger.info("Time limit added for PID: " + process_id + " with time limit: " + time_limit);
                 }
-            } catch (SQLException e) {
-                Logger.error("Error setting time limit: " + e.getMessage());
-                throw new RuntimeException(e);
             }
-        });
+        }
+        invalidateRules();
     }
 
     /**
@@ -80,49 +145,33 @@ public class ProcessRepository {
      * @param process_id The ID of the process.
      * @return The time limit in sedb.getCon()ds, or 0 if not set.
      */
-    public synchronized int getTimeLimit(int process_id) {
+    @Override
+    public int getTimeLimit(int process_id) {
         try {
-            PreparedStatement checkQuery = db.getCon().prepareStatement("Select * from Timelimits  WHERE PROCESS_ID= ?");
-            checkQuery.setInt(1, process_id);
-            ResultSet rs = checkQuery.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("TIME_LIMIT");
-            }
+            return db.read("getTimeLimit", con -> loadTimeLimit(con, process_id));
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
-        return 0;
     }
 
     /**
-     * Retrieves all processes for a given user that appear to be URLs (by extension).
+     * Retrieves the time limit of a specific process without blocking the caller.
      *
-     * @param user The {@link UserInfo} object representing the user.
-     * @return A list of {@link ProcessInfo} objects representing URL-like processes.
+     * @param process_id The ID of the process.
+     * @return A future completed with the time limit in seconds, or 0 if not set.
      */
-    public synchronized ArrayList<ProcessInfo> getURLS(UserInfo user) {
-        ArrayList<ProcessInfo> resArray = new ArrayList<>();
-        try {
-            PreparedStatement checkQuery = db.getCon().prepareStatement(
-                    "SELECT * FROM Processes WHERE USER_ID = ? AND " +
-                            "(process_name LIKE '%.com%' OR process_name LIKE '%.net%' OR process_name LIKE '%.org%' OR process_name LIKE '%.edu%')"
-            );
-            checkQuery.setInt(1, user.getId() - 1);
-            ResultSet rs = checkQuery.executeQuery();
-            while (rs.next()) {
-                int id = rs.getInt("ID");
-                int userId = rs.getInt("USER_ID");
-                String processName = rs.getString("Process_name");
-                int totalTime = rs.getInt("TOTAL_TIME");
-                int timeLimit = getTimeLimit(id);
-                resArray.add(new ProcessInfo(id, userId, processName, totalTime, timeLimit));
+    @Override
+    public CompletableFuture<Integer> getTimeLimitAsync(int process_id) {
+        return db.readAsync("getTimeLimit", con -> loadTimeLimit(con, process_id));
+    }
+
+    private static int loadTimeLimit(Connection con, int process_id) throws SQLException {
+        try (PreparedStatement checkQuery = con.prepareStatement("Select * from Timelimits  WHERE PROCESS_ID= ?")) {
+            checkQuery.setInt(1, process_id);
+            try (ResultSet rs = checkQuery.executeQuery()) {
+                return rs.next() ? rs.getInt("TIME_LIMIT") : 0;
             }
-            rs.close();
-            checkQuery.close();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
         }
-        return resArray;
     }
 
     /**
@@ -132,140 +181,179 @@ public class ProcessRepository {
      * @param process_id The ID of the process.
      * @return The total time in sedb.getCon()ds.
      */
-    public synchronized int getTime(int process_id) {
+    @Override
+    public int getTime(int process_id) {
         try {
-            PreparedStatement checkQuery = db.getCon().prepareStatement("Select * from Processes WHERE ID= ?");
-            checkQuery.setInt(1, process_id);
-            ResultSet rs = checkQuery.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("TOTAL_TIME");
-            }
+            return db.read("getTime", con -> loadTime(con, process_id));
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
-        return 0;
+    }
+
+    /**
+     * Retrieves the total time of a specific process without blocking the caller.
+     *
+     * @param process_id The ID of the process.
+     * @return A future completed with the total time in seconds.
+     */
+    @Override
+    public CompletableFuture<Integer> getTimeAsync(int process_id) {
+        return db.readAsync("getTime", con -> loadTime(con, process_id));
+    }
+
+    private static int loadTime(Connection con, int process_id) throws SQLException {
+        try (PreparedStatement checkQuery = con.prepareStatement("Select * from Processes WHERE ID= ?")) {
+            checkQuery.setInt(1, process_id);
+            try (ResultSet rs = checkQuery.executeQuery()) {
+                return rs.next() ? rs.getInt("TOTAL_TIME") : 0;
+            }
+        }
     }
 
     /**
      * Removes a process and its associated time limits from the database.
-     * This operation is performed asynchronously.
      *
      * @param prs The {@link ProcessInfo} object representing the process to remove.
+     * @return A future completed once the removal is committed.
      */
-    public synchronized void removeProcess(ProcessInfo prs) {
-        db.executeDatabaseTask(() -> {
-            try {
-                PreparedStatement checkQuery = db.getCon().prepareStatement("DELETE FROM Processes WHERE ID=?");
+    @Override
+    public CompletableFuture<Void> removeProcessAsync(ProcessInfo prs) {
+        return db.submitDatabaseTask("removeProcess", () -> {
+            try (PreparedStatement checkQuery = db.getCon().prepareStatement("DELETE FROM Processes WHERE ID=?");
+                 PreparedStatement checkQuery2 = db.getCon().prepareStatement("DELETE FROM TimeLimits WHERE PROCESS_ID=?")) {
                 checkQuery.setInt(1, prs.getId());
                 checkQuery.executeUpdate();
 
-                PreparedStatement checkQuery2 = db.getCon().prepareStatement("DELETE FROM TimeLimits WHERE PROCESS_ID=?");
                 checkQuery2.setInt(1, prs.getId());
                 checkQuery2.executeUpdate();
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
+                invalidateRules();
             }
+            return null;
         });
     }
 
     /**
-     * Retrieves all processes for a specific user.
-     * This method is thread-safe.
+     * Retrieves all processes for a specific user together with their time limits.
+     * The rule set is loaded with a single query and cached until a process, a time limit or the
+     * stored total time changes, so repeated calls from the monitoring loop and the UI do not hit
+     * the database. This method is thread-safe.
      *
      * @param user_id The ID of the user.
-     * @return A list of {@link ProcessInfo} objects.
+     * @return An unmodifiable list of {@link ProcessInfo} objects.
      */
-    public synchronized ArrayList<ProcessInfo> getProcesses(int user_id) {
-        ArrayList<ProcessInfo> resArray = new ArrayList<>();
+    @Override
+    public List<ProcessInfo> getProcesses(int user_id) {
         try {
-            PreparedStatement checkQuery = db.getCon().prepareStatement("SELECT * FROM processes WHERE user_id=?");
-            checkQuery.setInt(1, user_id);
-            ResultSet rs = checkQuery.executeQuery();
-            while (rs.next()) {
-                int time_limit = getTimeLimit(rs.getInt("ID"));
-                resArray.add(new ProcessInfo(rs.getInt("ID"), rs.getInt("USER_ID"), rs.getString("PROCESS_NAME"), rs.getInt("TOTAL_TIME"), time_limit));
-            }
+            return rulesCache.get(user_id, id -> db.read("getProcesses", con -> loadProcesses(con, id)));
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
-        return resArray;
     }
 
     /**
-     * Updates the name and time limit of a process.
-     * This operation is performed asynchronously.
+     * Retrieves all processes for a specific user together with their time limits without
+     * blocking the caller. A cached rule set completes the future immediately.
      *
-     * @param prs The {@link ProcessInfo} object db.getCon()taining updated process data.
+     * @param user_id The ID of the user.
+     * @return A future completed with an unmodifiable list of {@link ProcessInfo} objects.
+     */
+    @Override
+    public CompletableFuture<List<ProcessInfo>> getProcessesAsync(int user_id) {
+        return rulesCache.getAsync(user_id, id -> db.readAsync("getProcesses", con -> loadProcesses(con, id)));
+    }
+
+    private static List<ProcessInfo> loadProcesses(Connection con, int user_id) throws SQLException {
+        ArrayList<ProcessInfo> loaded = new ArrayList<>();
+        try (PreparedStatement checkQuery = con.prepareStatement(
+                "SELECT p.ID, p.USER_ID, p.PROCESS_NAME, p.TOTAL_TIME, COALESCE(t.TIME_LIMIT, 0) AS TIME_LIMIT " +
+                        "FROM Processes p LEFT JOIN TimeLimits t ON t.PROCESS_ID = p.ID WHERE p.USER_ID = ?")) {
+            checkQuery.setInt(1, user_id);
+            try (ResultSet rs = checkQuery.executeQuery()) {
+                while (rs.next()) {
+                    loaded.add(new ProcessInfo(rs.getInt("ID"), rs.getInt("USER_ID"), rs.getString("PROCESS_NAME"),
+                            rs.getInt("TOTAL_TIME"), rs.getInt("TIME_LIMIT")));
+                }
+            }
+        }
+        return Collections.unmodifiableList(loaded);
+    }
+
+    /**
+     * Drops the cached rule sets once the current write commits. Called on the database thread
+     * after every write to the Processes or TimeLimits tables.
      */
-    public void updateProcess(ProcessInfo prs) {
-        db.executeDatabaseTask(() -> {
+    void invalidateRules() {
+        db.afterCommit(rulesCache::invalidate);
+    }
+
+    /**
+     * Updates the name and time limit of a process in a single database task.
+     *
+     * @param prs The {@link ProcessInfo} object containing updated process data.
+     * @return A future completed once the update is committed.
+     */
+    @Override
+    public CompletableFuture<Void> updateProcessAsync(ProcessInfo prs) {
+        return db.submitDatabaseTask("updateProcess", () -> {
             try (PreparedStatement stmt = db.getCon().prepareStatement("UPDATE Processes SET PROCESS_NAME = ? WHERE ID = ?")) {
                 stmt.setString(1, prs.getProcess_name());
                 stmt.setInt(2, prs.getId());
                 stmt.executeUpdate();
+                writeTimeLimit(prs.getId(), prs.getTime_limit());
             } catch (SQLException e) {
                 Logger.error("Error setting time limit: " + e.getMessage());
-                throw new RuntimeException(e);
-            }
-        });
-        db.executeDatabaseTask(() -> {
-            try (PreparedStatement stmt = db.getCon().prepareStatement("UPDATE TimeLimits SET TIME_LIMIT = ? WHERE PROCESS_ID = ?")) {
-                stmt.setInt(1, prs.getTime_limit());
-                stmt.setInt(2, prs.getId());
-                stmt.executeUpdate();
-            } catch (SQLException e) {
-                Logger.error("Error setting time limit: " + e.getMessage());
-                throw new RuntimeException(e);
+                throw e;
             }
+            return null;
         });
     }
 
     /**
-     * Adds a new process for a specific user if it does not already exist.
-     * Also sets the time limit for the process asynchronously.
+     * Adds a new process for a specific user, or finds the existing one with the same name, and
+     * sets its time limit in the same database task. The ID of a new process is read from the
+     * generated keys of the insert.
      *
-     * @param prs The {@link ProcessInfo} object containing process details.
+     * @param prs The {@link ProcessInfo} object containing process details; its ID is updated.
+     * @return A future completed with the ID of the process once the changes are committed.
      */
-    public void addProcess(ProcessInfo prs) {
-        db.executeDatabaseTask(() -> {
-            try (PreparedStatement stmt = db.getCon().prepareStatement("SELECT 1 FROM Processes WHERE PROCESS_NAME = ? AND USER_ID = ?")) {
-                stmt.setString(1, prs.getProcess_name());
-                stmt.setInt(2, prs.getUser_id());
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        Logger.warn("Process already exists.");
-                        return;
+    @Override
+    public CompletableFuture<Integer> addProcessAsync(ProcessInfo prs) {
+        return db.submitDatabaseTask("addProcess", () -> {
+            try {
+                int id = -1;
+                try (PreparedStatement stmt = db.getCon().prepareStatement("SELECT ID FROM Processes WHERE PROCESS_NAME = ? AND USER_ID = ?")) {
+                    stmt.setString(1, prs.getProcess_name());
+                    stmt.setInt(2, prs.getUser_id());
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            Logger.warn("Process already exists.");
+                            id = rs.getInt("ID");
+                        }
                     }
                 }
-                try (PreparedStatement insertStmt = db.getCon().prepareStatement(
-                        "INSERT INTO Processes (USER_ID, PROCESS_NAME, TOTAL_TIME) VALUES (?, ?, 0)")) {
-                    insertStmt.setInt(1, prs.getUser_id());
-                    insertStmt.setString(2, prs.getProcess_name());
-                    insertStmt.executeUpdate();
-                    Logger.info("Process added: " + prs.getProcess_name());
-                }
-            } catch (SQLException e) {
-                Logger.error("Error adding process: " + e.getMessage());
-            }
-        });
-
-       db.executeDatabaseTask(() -> {
-            try (PreparedStatement idStmt = db.getCon().prepareStatement(
-                    "Select ID from Processes WHERE USER_ID = ? AND PROCESS_NAME = ?")) {
-                idStmt.setInt(1, prs.getUser_id());
-                idStmt.setString(2, prs.getProcess_name());
-                try (ResultSet rs = idStmt.executeQuery()) {
-                    if (rs.next()) {
-                        prs.setId(rs.getInt("ID"));
-                        setTimeLimit(prs);
-                    } else {
-                        Logger.warn("Process ID not found");
+                if (id == -1) {
+                    try (PreparedStatement insertStmt = db.getCon().prepareStatement(
+                            "INSERT INTO Processes (USER_ID, PROCESS_NAME, TOTAL_TIME) VALUES (?, ?, 0)",
+                            Statement.RETURN_GENERATED_KEYS)) {
+                        insertStmt.setInt(1, prs.getUser_id());
+                        insertStmt.setString(2, prs.getProcess_name());
+                        insertStmt.executeUpdate();
+                        try (ResultSet keys = insertStmt.getGeneratedKeys()) {
+                            if (!keys.next()) {
+                                throw new SQLException("Process ID not generated");
+                            }
+                            id = keys.getInt(1);
+                        }
+                        Logger.info("Process added: " + prs.getProcess_name());
                     }
                 }
+                prs.setId(id);
+                writeTimeLimit(id, prs.getTime_limit());
+                return id;
             } catch (SQLException e) {
-                throw new RuntimeException(e);
+                Logger.error("Error adding process: " + e.getMessage());
+                throw e;
             }
         });
     }
-
 }
@@ -3,14 +3,23 @@ package db.Repositories;
 import Processes.ProcessInfo;
 import Processes.UserInfo;
 import db.Database;
+import db.Stores.UsageStore;
 import org.tinylog.Logger;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
-public class UsageTrackingRepository {
+public class UsageTrackingRepository implements UsageStore {
     private Database db;
 
     public UsageTrackingRepository(Database database) {
@@ -18,72 +27,161 @@ public class UsageTrackingRepository {
     }
 
     /**
-     * Increments the total tracked time for a process by 2 seconds.
-     * This operation is performed asynchronously.
+     * Adds time to the usage record of a (user, process name ID), creating the record if it does not
+     * exist yet, so tracking a process never needs a lookup first.
+     */
+    private static final String UPSERT_USAGE_TIME = "INSERT INTO UsageTracking (USER_ID, NAME_ID, TIME) VALUES (?, ?, ?) "
+            + "ON CONFLICT(USER_ID, NAME_ID) DO UPDATE SET TIME = TIME + excluded.TIME";
+
+    /**
+     * Selects the usage records of a user with their process names.
+     */
+    private static final String SELECT_USAGE = "SELECT u.ID, u.USER_ID, n.NAME, u.TIME FROM UsageTracking u "
+            + "JOIN ProcessNames n ON n.ID = u.NAME_ID WHERE u.USER_ID = ?";
+
+    /**
+     * Queue key of the usage flush batch waiting for the database thread.
+     */
+    private static final String FLUSH_KEY = "UsageTracking.flush";
+
+    /**
+     * Increments the total tracked time for a process by the given number of seconds, creating its
+     * usage record if needed.
      *
-     * @param prs The Process to update.
+     * @param prs     The Process to update.
+     * @param seconds The elapsed time to add, in seconds.
+     * @return A future completed once the update is committed.
      */
-    public void updateUsageTime(ProcessInfo prs) {
-        db.executeDatabaseTask(() -> {
-            try (PreparedStatement stmt = db.getCon().prepareStatement(
-                    "UPDATE UsageTracking SET TIME=TIME+6 WHERE USER_ID = ? and NAME = ?")) {
+    @Override
+    public CompletableFuture<Void> updateUsageTimeAsync(ProcessInfo prs, int seconds) {
+        // Increments of the same counter still waiting in the queue are merged into one update.
+        int nameId = db.processNames.intern(prs.getProcess_name());
+        return db.submitCoalescingTask("updateUsageTime", List.of("UsageTracking", prs.getUser_id(), nameId), seconds, Integer::sum, total -> {
+            db.processNames.insertNames(db.getCon(), List.of(prs.getProcess_name()));
+            try (PreparedStatement stmt = db.getCon().prepareStatement(UPSERT_USAGE_TIME)) {
                 stmt.setInt(1, prs.getUser_id());
-                stmt.setString(2, prs.getProcess_name());
+                stmt.setInt(2, nameId);
+                stmt.setInt(3, total);
                 stmt.executeUpdate();
             } catch (SQLException e) {
                 Logger.error("Error updating process time: " + e.getMessage());
-                throw new RuntimeException(e);
+                throw e;
             }
         });
     }
 
+    /**
+     * Adds accumulated usage time for several processes with a single batched upsert, creating the
+     * usage records of processes seen for the first time.
+     * Each {@link ProcessInfo} carries the number of seconds to add in its total time.
+     * This operation is performed asynchronously.
+     *
+     * @param deltas The processes and the time to add to each of them.
+     * @return A future completed with the number of processes written once the batch commits.
+     */
+    @Override
+    public CompletableFuture<Integer> addUsageTimes(List<ProcessInfo> deltas) {
+        // Flushes queued behind a stalled writer are summed into the one waiting batch.
+        return db.submitCoalescingTask("addUsageTimes", FLUSH_KEY, deltas, UsageTrackingRepository::sumUsageTimes, batch -> {
+            Set<String> names = new HashSet<>();
+            for (ProcessInfo prs : batch) {
+                names.add(prs.getProcess_name());
+            }
+            db.processNames.insertNames(db.getCon(), names);
+            try (PreparedStatement stmt = db.getCon().prepareStatement(UPSERT_USAGE_TIME)) {
+                for (ProcessInfo prs : batch) {
+                    stmt.setInt(1, prs.getUser_id());
+                    stmt.setInt(2, db.processNames.intern(prs.getProcess_name()));
+                    stmt.setInt(3, prs.getTotal_time());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        }).thenApply(v -> deltas.size());
+    }
+
+    /**
+     * Sums two batches of usage deltas by user and process name, without changing either batch.
+     */
+    private static List<ProcessInfo> sumUsageTimes(List<ProcessInfo> a, List<ProcessInfo> b) {
+        Map<List<Object>, ProcessInfo> sums = new LinkedHashMap<>();
+        for (List<ProcessInfo> batch : List.of(a, b)) {
+            for (ProcessInfo prs : batch) {
+                sums.merge(List.of(prs.getUser_id(), prs.getProcess_name()),
+                        new ProcessInfo(0, prs.getUser_id(), prs.getProcess_name(), prs.getTotal_time()),
+                        (x, y) -> new ProcessInfo(0, x.getUser_id(), x.getProcess_name(), x.getTotal_time() + y.getTotal_time()));
+            }
+        }
+        return new ArrayList<>(sums.values());
+    }
+
     /**
      * Checks if a process is already being tracked for usage for a specific user.
      *
      * @param prs The {@link ProcessInfo} object containing process and user details.
      * @return {@code true} if the process is tracked, {@code false} otherwise.
      */
+    @Override
     public boolean isUsageTracked(ProcessInfo prs) {
-        try (PreparedStatement checkStmt = db.getCon().prepareStatement(
-                "SELECT * FROM UsageTracking WHERE NAME = ? AND USER_ID = ?")) {
-            checkStmt.setString(1, prs.getProcess_name());
-            checkStmt.setInt(2, prs.getUser_id());
-            try (ResultSet rs = checkStmt.executeQuery()) {
-                boolean found = rs.next();
-                return found;
-            }
+        try {
+            return db.read("isUsageTracked", con -> isUsageTracked(con, prs.getUser_id(), db.processNames.find(prs.getProcess_name())));
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Checks if a process is already being tracked for usage for a specific user without blocking
+     * the caller.
+     *
+     * @param prs The {@link ProcessInfo} object containing process and user details.
+     * @return A future completed with {@code true} if the process is tracked.
+     */
+    @Override
+    public CompletableFuture<Boolean> isUsageTrackedAsync(ProcessInfo prs) {
+        return db.readAsync("isUsageTracked", con -> isUsageTracked(con, prs.getUser_id(), db.processNames.find(prs.getProcess_name())));
+    }
+
+    private static boolean isUsageTracked(Connection con, int userId, int nameId) throws SQLException {
+        if (nameId == -1) {
+            // A name that was never interned has no usage record.
+            return false;
+        }
+        try (PreparedStatement checkStmt = con.prepareStatement(
+                "SELECT 1 FROM UsageTracking WHERE NAME_ID = ? AND USER_ID = ?")) {
+            checkStmt.setInt(1, nameId);
+            checkStmt.setInt(2, userId);
+            try (ResultSet rs = checkStmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
     /**
      * Retrieves all usage tracking records for a specific user.
      *
      * @param user The {@link UserInfo} object representing the user.
      * @return A list of {@link ProcessInfo} objects with usage time for each tracked process.
      */
+    @Override
     public ArrayList<ProcessInfo> getUsageTrackingTopTen(UserInfo user) {
-        ArrayList<ProcessInfo> resArray = new ArrayList<>();
-        try (PreparedStatement checkQuery = db.getCon().prepareStatement(
-                "SELECT * FROM UsageTracking WHERE USER_ID = ? AND NOT name = 'svchost.exe' ORDER BY TIME DESC LIMIT 10")) {
-            checkQuery.setInt(1, user.getId()-1);
-            try (ResultSet rs = checkQuery.executeQuery()) {
-                while (rs.next()) {
-                    int id = rs.getInt("ID");
-                    int userId = rs.getInt("USER_ID");
-                    String processName = rs.getString("NAME");
-                    int time = rs.getInt("TIME");
-                    ProcessInfo processInfo = new ProcessInfo(id, userId, processName, 0, 0);
-                    processInfo.setTotal_time(time);
-                    resArray.add(processInfo);
-                }
-            }
+        try {
+            return db.read("getUsageTrackingTopTen", con -> loadUsageTracking(con, user, SELECT_USAGE + " AND NOT n.NAME = 'svchost.exe' ORDER BY u.TIME DESC LIMIT 10"));
         } catch (SQLException e) {
             Logger.error("Error retrieving usage tracking: " + e.getMessage());
             throw new RuntimeException(e);
         }
-        return resArray;
+    }
+
+    /**
+     * Retrieves the ten most used processes of a specific user without blocking the caller.
+     *
+     * @param user The {@link UserInfo} object representing the user.
+     * @return A future completed with the usage tracking records.
+     */
+    @Override
+    public CompletableFuture<ArrayList<ProcessInfo>> getUsageTrackingTopTenAsync(UserInfo user) {
+        return db.readAsync("getUsageTrackingTopTen", con -> loadUsageTracking(con, user, SELECT_USAGE + " AND NOT n.NAME = 'svchost.exe' ORDER BY u.TIME DESC LIMIT 10"));
     }
     /**
      * Retrieves all usage tracking records for a specific user.
@@ -91,52 +189,75 @@ public class UsageTrackingRepository {
      * @param user The {@link UserInfo} object representing the user.
      * @return A list of {@link ProcessInfo} objects with usage time for each tracked process.
      */
+    @Override
     public ArrayList<ProcessInfo> getUsageTracking(UserInfo user) {
-        ArrayList<ProcessInfo> resArray = new ArrayList<>();
-        try (PreparedStatement checkQuery = db.getCon().prepareStatement(
-                "SELECT * FROM UsageTracking WHERE USER_ID = ?")) {
-            checkQuery.setInt(1, user.getId()-1);
-            try (ResultSet rs = checkQuery.executeQuery()) {
-                while (rs.next()) {
-                    int id = rs.getInt("ID");
-                    int userId = rs.getInt("USER_ID");
-                    String processName = rs.getString("NAME");
-                    int time = rs.getInt("TIME");
-                    ProcessInfo processInfo = new ProcessInfo(id, userId, processName, 0, 0);
-                    processInfo.setTotal_time(time);
-                    resArray.add(processInfo);
-                }
-            }
+        try {
+            return db.read("getUsageTracking", con -> loadUsageTracking(con, user, SELECT_USAGE));
         } catch (SQLException e) {
             Logger.error("Error retrieving usage tracking: " + e.getMessage());
             throw new RuntimeException(e);
         }
-        return resArray;
+    }
+
+    /**
+     * Retrieves all usage tracking records for a specific user without blocking the caller.
+     *
+     * @param user The {@link UserInfo} object representing the user.
+     * @return A future completed with the usage tracking records.
+     */
+    @Override
+    public CompletableFuture<ArrayList<ProcessInfo>> getUsageTrackingAsync(UserInfo user) {
+        return db.readAsync("getUsageTracking", con -> loadUsageTracking(con, user, SELECT_USAGE));
     }
 
     /**
      * Adds a new usage tracking record for a process and user, if not already present.
-     * This operation is performed asynchronously.
+     * The ID of the new record is read from the generated keys of the insert.
      *
      * @param prs The {@link ProcessInfo} object containing process and user details.
+     * @return A future completed with the ID of the new record, or {@code -1} if it already existed,
+     *         once the insert is committed.
      */
-    public void addUsageTime(ProcessInfo prs) {
-        db.executeDatabaseTask(() -> {
+    @Override
+    public CompletableFuture<Integer> addUsageTimeAsync(ProcessInfo prs) {
+        return db.submitDatabaseTask("addUsageTime", () -> {
+            db.processNames.insertNames(db.getCon(), List.of(prs.getProcess_name()));
             try (PreparedStatement insertStmt = db.getCon().prepareStatement(
-                    "INSERT INTO UsageTracking (USER_ID, NAME, TIME) VALUES (?, ?, ?)")) {
+                    "INSERT INTO UsageTracking (USER_ID, NAME_ID, TIME) VALUES (?, ?, ?) ON CONFLICT(USER_ID, NAME_ID) DO NOTHING",
+                    Statement.RETURN_GENERATED_KEYS)) {
                 insertStmt.setInt(1, prs.getUser_id());
-                insertStmt.setString(2, prs.getProcess_name());
+                insertStmt.setInt(2, db.processNames.intern(prs.getProcess_name()));
                 insertStmt.setInt(3, 0);
-                insertStmt.executeUpdate();
+                if (insertStmt.executeUpdate() == 0) {
+                    return -1;
+                }
                 Logger.info("Adding usage time for process: " + prs.getProcess_name());
-            } catch (SQLException e) {
-                if (e.getMessage().contains("UNIQUE") || e.getErrorCode() == 19) {
-                } else {
-                    Logger.error("Error adding usage time: " + e.getMessage());
-                    throw new RuntimeException(e);
+                try (ResultSet keys = insertStmt.getGeneratedKeys()) {
+                    return keys.next() ? keys.getInt(1) : -1;
                 }
+            } catch (SQLException e) {
+                Logger.error("Error adding usage time: " + e.getMessage());
+                throw e;
             }
         });
     }
 
+    private static ArrayList<ProcessInfo> loadUsageTracking(Connection con, UserInfo user, String sql) throws SQLException {
+        ArrayList<ProcessInfo> resArray = new ArrayList<>();
+        try (PreparedStatement checkQuery = con.prepareStatement(sql)) {
+            checkQuery.setInt(1, user.getId()-1);
+            try (ResultSet rs = checkQuery.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("ID");
+                    int userId = rs.getInt("USER_ID");
+                    String processName = rs.getString("NAME");
+                    int time = rs.getInt("TIME");
+                    ProcessInfo processInfo = new ProcessInfo(id, userId, processName, 0, 0);
+                    processInfo.setTotal_time(time);
+                    resArray.add(processInfo);
+                }
+            }
+        }
+        return resArray;
+    }
 }
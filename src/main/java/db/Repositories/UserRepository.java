@@ -2,37 +2,83 @@ package db.Repositories;
 
 import Processes.UserInfo;
 import db.Database;
-import javafx.application.Platform;
+import db.ReadThroughCache;
+import db.Stores.UserStore;
 import org.tinylog.Logger;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-public class UserRepository {
+public class UserRepository implements UserStore {
     private Database db;
 
-    public UserRepository(Database database) {
+    /**
+     * The list of users, as returned by {@link #getUsers()}, under the single key {@link #ALL_USERS}.
+     */
+    private final ReadThroughCache<String, List<UserInfo>> usersCache = new ReadThroughCache<>();
+
+    private static final String ALL_USERS = "users";
+
+    /**
+     * The rule and event repositories whose cached data is dropped when a user is deleted.
+     */
+    private final ProcessRepository rules;
+    private final EventRepository events;
+
+    public UserRepository(Database database, ProcessRepository rules, EventRepository events) {
         this.db = database;
+        this.rules = rules;
+        this.events = events;
     }
 
     /**
      * Retrieves all users from the database.
+     * The list is cached until a user is created or deleted.
+     *
+     * @return An unmodifiable list of {@link UserInfo} objects.
+     */
+    @Override
+    public List<UserInfo> getUsers() {
+        try {
+            return usersCache.get(ALL_USERS, key -> db.read("getUsers", UserRepository::loadUsers));
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Retrieves all users from the database without blocking the caller.
      *
-     * @return A list of {@link UserInfo} objects.
+     * @return A future completed with an unmodifiable list of {@link UserInfo} objects.
      */
-    public ArrayList<UserInfo> getUsers() {
+    @Override
+    public CompletableFuture<List<UserInfo>> getUsersAsync() {
+        return usersCache.getAsync(ALL_USERS, key -> db.readAsync("getUsers", UserRepository::loadUsers));
+    }
+
+    private static List<UserInfo> loadUsers(Connection con) throws SQLException {
         ArrayList<UserInfo> resArray = new ArrayList<>();
-        try(PreparedStatement checkQuery = db.getCon().prepareStatement("SELECT * FROM users")) {
-            ResultSet rs = checkQuery.executeQuery();
+        try (PreparedStatement checkQuery = con.prepareStatement("SELECT * FROM users");
+             ResultSet rs = checkQuery.executeQuery()) {
             while (rs.next()) {
                 resArray.add(new UserInfo(rs.getString("name"), rs.getInt("id")));
             }
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
         }
-        return resArray;
+        return Collections.unmodifiableList(resArray);
+    }
+
+    /**
+     * Drops the cached list of users once the current write commits.
+     */
+    void invalidateUsers() {
+        db.afterCommit(usersCache::invalidate);
     }
 
     /**
@@ -41,17 +87,33 @@ public class UserRepository {
      * @param name The username to check.
      * @return {@code true} if the user exists, {@code false} otherwise.
      */
+    @Override
     public boolean isUserName(String name) {
-        try (PreparedStatement stm = db.getCon().prepareStatement("SELECT * FROM users WHERE name=?")) {
-            stm.setString(1, name);
-            ResultSet rs = stm.executeQuery();
-            if (rs.next()) {
-                return true;
-            }
+        try {
+            return db.read("isUserName", con -> isUserName(con, name));
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
-        return false;
+    }
+
+    /**
+     * Checks if a user with the given name exists in the database without blocking the caller.
+     *
+     * @param name The username to check.
+     * @return A future completed with {@code true} if the user exists.
+     */
+    @Override
+    public CompletableFuture<Boolean> isUserNameAsync(String name) {
+        return db.readAsync("isUserName", con -> isUserName(con, name));
+    }
+
+    private static boolean isUserName(Connection con, String name) throws SQLException {
+        try (PreparedStatement stm = con.prepareStatement("SELECT * FROM users WHERE name=?")) {
+            stm.setString(1, name);
+            try (ResultSet rs = stm.executeQuery()) {
+                return rs.next();
+            }
+        }
     }
 
     /**
@@ -61,22 +123,12 @@ public class UserRepository {
      * @param name The name of the new user.
      * @return {@code true} if the user was created, {@code false} if the user already exists.
      */
+    @Override
     public synchronized boolean createUser(String name, Runnable onCreated) {
         if (!isUserName(name)) {
-            db.executeDatabaseTask(() -> {
-                try (PreparedStatement stmt = db.getCon().prepareStatement("INSERT INTO Users (NAME,IP) VALUES (?,?)")) {
-                    stmt.setString(1, name);
-                    stmt.setString(2, "192.168.1.1");
-                    stmt.executeUpdate();
-
-                    if (onCreated != null){
-                        Platform.runLater(onCreated);
-                    }
-                    Logger.info("User created: " + name);
-                    System.out.println("User created: " + name);
-                } catch (SQLException e) {
-                    Logger.error("Error setting time limit: " + e.getMessage());
-                    throw new RuntimeException(e);
+            Database.onFxThread(createUserAsync(name)).thenAccept(id -> {
+                if (onCreated != null && id != -1) {
+                    onCreated.run();
                 }
             });
             return true;
@@ -85,49 +137,84 @@ public class UserRepository {
     }
 
     /**
-     * Deletes a user and all associated processes, time limits, and events.
-     * This operation is performed asynchronously.
+     * Creates a new user with the specified name if it does not already exist.
+     * The existence check and the insert run in the same database task, and the ID of the new
+     * user is read from the generated keys of the insert.
      *
-     * @param user The {@link UserInfo} object representing the user to delete.
+     * @param name The name of the new user.
+     * @return A future completed with the ID of the new user, or {@code -1} if it already existed,
+     *         once the insert is committed.
      */
-    public synchronized void deleteUser(UserInfo user) {
-        db.executeDatabaseTask(() -> {
-            try {
-                int userId = user.getId() - 1;
-                ArrayList<Integer> processIds = new ArrayList<>();
-                try (PreparedStatement getProcesses = db.getCon().prepareStatement(
-                        "SELECT ID FROM Processes WHERE User_ID = ?")) {
-                    getProcesses.setInt(1, userId);
-                    ResultSet rs = getProcesses.executeQuery();
-                    while (rs.next()) {
-                        processIds.add(rs.getInt("ID"));
-                    }
-                }
-                try (PreparedStatement deleteTimeLimits = db.getCon().prepareStatement(
-                        "DELETE FROM TimeLimits WHERE Process_ID = ?")) {
-                    for (int processId : processIds) {
-                        deleteTimeLimits.setInt(1, processId);
-                        deleteTimeLimits.executeUpdate();
-                    }
-                }
-                try (PreparedStatement deleteEvents = db.getCon().prepareStatement(
-                        "DELETE FROM Events WHERE User_ID = ?")) {
-                    deleteEvents.setInt(1, userId);
-                    deleteEvents.executeUpdate();
+    @Override
+    public CompletableFuture<Integer> createUserAsync(String name) {
+        return db.submitDatabaseTask("createUser", () -> {
+            if (isUserName(db.getCon(), name)) {
+                return -1;
+            }
+            try (PreparedStatement stmt = db.getCon().prepareStatement("INSERT INTO Users (NAME,IP) VALUES (?,?)",
+                    Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, name);
+                stmt.setString(2, "192.168.1.1");
+                stmt.executeUpdate();
+                invalidateUsers();
+
+                Logger.info("User created: " + name);
+                System.out.println("User created: " + name);
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    return keys.next() ? keys.getInt(1) : -1;
                 }
-                try (PreparedStatement deleteProcesses = db.getCon().prepareStatement(
-                        "DELETE FROM Processes WHERE User_ID = ?")) {
-                    deleteProcesses.setInt(1, userId);
-                    deleteProcesses.executeUpdate();
+            } catch (SQLException e) {
+                Logger.error("Error setting time limit: " + e.getMessage());
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Deletes a user and all associated processes, time limits, and events in one database task.
+     *
+     * @param user The {@link UserInfo} object representing the user to delete.
+     * @return A future completed once the deletion is committed.
+     */
+    @Override
+    public CompletableFuture<Void> deleteUserAsync(UserInfo user) {
+        return db.submitDatabaseTask("deleteUser", () -> {
+            int userId = user.getId() - 1;
+            ArrayList<Integer> processIds = new ArrayList<>();
+            try (PreparedStatement getProcesses = db.getCon().prepareStatement(
+                    "SELECT ID FROM Processes WHERE User_ID = ?")) {
+                getProcesses.setInt(1, userId);
+                ResultSet rs = getProcesses.executeQuery();
+                while (rs.next()) {
+                    processIds.add(rs.getInt("ID"));
                 }
-                try (PreparedStatement deleteUser = db.getCon().prepareStatement(
-                        "DELETE FROM Users WHERE ID = ?")) {
-                    deleteUser.setInt(1, userId + 1);
-                    deleteUser.executeUpdate();
+            }
+            try (PreparedStatement deleteTimeLimits = db.getCon().prepareStatement(
+                    "DELETE FROM TimeLimits WHERE Process_ID = ?")) {
+                for (int processId : processIds) {
+                    deleteTimeLimits.setInt(1, processId);
+                    deleteTimeLimits.executeUpdate();
                 }
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
             }
+            try (PreparedStatement deleteEvents = db.getCon().prepareStatement(
+                    "DELETE FROM Events WHERE User_ID = ?")) {
+                deleteEvents.setInt(1, userId);
+                deleteEvents.executeUpdate();
+            }
+            try (PreparedStatement deleteProcesses = db.getCon().prepareStatement(
+                    "DELETE FROM Processes WHERE User_ID = ?")) {
+                deleteProcesses.setInt(1, userId);
+                deleteProcesses.executeUpdate();
+            }
+            try (PreparedStatement deleteUser = db.getCon().prepareStatement(
+                    "DELETE FROM Users WHERE ID = ?")) {
+                deleteUser.setInt(1, userId + 1);
+                deleteUser.executeUpdate();
+            }
+            rules.invalidateRules();
+            events.invalidateEvents();
+            invalidateUsers();
+            return null;
         });
     }
 }
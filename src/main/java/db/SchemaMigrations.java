@@ -0,0 +1,152 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * The {@code SchemaMigrations} class lists the migrations of the database schema, applied in order
+ * by the {@link MigrationRunner}. A released migration must never be edited; schema changes are
+ * added as a new migration with the next version.
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public final class SchemaMigrations {
+    private SchemaMigrations() {
+    }
+
+    /**
+     * Returns every migration of the schema.
+     *
+     * @return The migrations, ordered by version.
+     */
+    public static List<Migration> all() {
+        return List.of(
+                Migration.sql(1, "baseline schema", """
+                    CREATE TABLE IF NOT EXISTS Users (
+                        ID INTEGER PRIMARY KEY AUTOINCREMENT,
+                        NAME TEXT NOT NULL,
+                        IP TEXT NOT NULL
+                    );
+                    CREATE TABLE IF NOT EXISTS Processes (
+                        ID INTEGER PRIMARY KEY AUTOINCREMENT,
+                        USER_ID INTEGER NOT NULL,
+                        PROCESS_NAME TEXT NOT NULL,
+                        TOTAL_TIME INTEGER NOT NULL DEFAULT 0,
+                        FOREIGN KEY (USER_ID) REFERENCES Users(ID)
+                    );
+                    CREATE TABLE IF NOT EXISTS TimeLimits (
+                        ID INTEGER PRIMARY KEY AUTOINCREMENT,
+                        PROCESS_ID INTEGER NOT NULL,
+                        TIME_LIMIT INTEGER NOT NULL,
+                        FOREIGN KEY (PROCESS_ID) REFERENCES Processes(ID)
+                    );
+                    CREATE TABLE IF NOT EXISTS UsageTracking (
+                        ID INTEGER PRIMARY KEY AUTOINCREMENT,
+                        USER_ID INTEGER,
+                        NAME INTEGER NOT NULL,
+                        TIME INTEGER NOT NULL,
+                        FOREIGN KEY (USER_ID) REFERENCES Users(ID),
+                        UNIQUE(USER_ID,NAME)
+                    );
+                    CREATE TABLE IF NOT EXISTS Events (
+                        ID INTEGER PRIMARY KEY AUTOINCREMENT,
+                        USER_ID INTEGER NOT NULL,
+                        EVENT_NAME TEXT NOT NULL,
+                        TIME INTEGER NOT NULL,
+                        BEFORE_AT INTEGER NOT NULL,
+                        REPEAT INTEGER NOT NULL,
+                        CREATED_AT INTEGER NOT NULL,
+                        FOREIGN KEY (USER_ID) REFERENCES Users(ID)
+                    );
+                    CREATE TABLE IF NOT EXISTS Admin (
+                        ID INTEGER PRIMARY KEY AUTOINCREMENT,
+                        PASSWORD TEXT NOT NULL
+                    );
+                    CREATE TABLE IF NOT EXISTS DailyUsage (
+                        ID INTEGER PRIMARY KEY AUTOINCREMENT,
+                        USER_ID INTEGER NOT NULL,
+                        DATE TEXT NOT NULL,
+                        USAGE_SECONDS INTEGER NOT NULL DEFAULT 0,
+                        FOREIGN KEY (USER_ID) REFERENCES Users(ID),
+                        UNIQUE(USER_ID, DATE)
+                    );
+                    CREATE INDEX IF NOT EXISTS idx_processes_user ON Processes(USER_ID);
+                    CREATE INDEX IF NOT EXISTS idx_timelimits_process ON TimeLimits(PROCESS_ID);
+                """),
+                new Migration(2, "add Events.CREATED_AT to databases created before it", SchemaMigrations::addEventCreatedAt),
+                Migration.sql(3, "store UsageTracking.NAME as TEXT", """
+                    CREATE TABLE UsageTracking_new (
+                        ID INTEGER PRIMARY KEY AUTOINCREMENT,
+                        USER_ID INTEGER,
+                        NAME TEXT NOT NULL,
+                        TIME INTEGER NOT NULL,
+                        FOREIGN KEY (USER_ID) REFERENCES Users(ID),
+                        UNIQUE(USER_ID,NAME)
+                    );
+                    -- Older files have no unique key and hold several rows per (user, name), which are merged.
+                    INSERT INTO UsageTracking_new (ID, USER_ID, NAME, TIME)
+                        SELECT MIN(ID), USER_ID, CAST(NAME AS TEXT), SUM(TIME) FROM UsageTracking
+                        GROUP BY USER_ID, CAST(NAME AS TEXT);
+                    DROP TABLE UsageTracking;
+                    ALTER TABLE UsageTracking_new RENAME TO UsageTracking;
+                """),
+                Migration.sql(4, "index the per-user usage and event lookups", """
+                    CREATE INDEX IF NOT EXISTS idx_usagetracking_user_time ON UsageTracking(USER_ID, TIME DESC);
+                    CREATE INDEX IF NOT EXISTS idx_events_user ON Events(USER_ID);
+                """),
+                Migration.sql(5, "key UsageTracking by the ProcessNames dictionary", """
+                    CREATE TABLE ProcessNames (
+                        ID INTEGER PRIMARY KEY,
+                        NAME TEXT NOT NULL UNIQUE
+                    );
+                    INSERT INTO ProcessNames (NAME) SELECT DISTINCT NAME FROM UsageTracking;
+                    CREATE TABLE UsageTracking_new (
+                        ID INTEGER PRIMARY KEY AUTOINCREMENT,
+                        USER_ID INTEGER,
+                        NAME_ID INTEGER NOT NULL,
+                        TIME INTEGER NOT NULL,
+                        FOREIGN KEY (USER_ID) REFERENCES Users(ID),
+                        FOREIGN KEY (NAME_ID) REFERENCES ProcessNames(ID),
+                        UNIQUE(USER_ID,NAME_ID)
+                    );
+                    INSERT INTO UsageTracking_new (ID, USER_ID, NAME_ID, TIME)
+                        SELECT u.ID, u.USER_ID, n.ID, u.TIME FROM UsageTracking u JOIN ProcessNames n ON n.NAME = u.NAME;
+                    DROP TABLE UsageTracking;
+                    ALTER TABLE UsageTracking_new RENAME TO UsageTracking;
+                    CREATE INDEX idx_usagetracking_user_time ON UsageTracking(USER_ID, TIME DESC);
+                """),
+                Migration.sql(6, "add MonthlyUsage for compacted daily usage", """
+                    CREATE TABLE MonthlyUsage (
+                        ID INTEGER PRIMARY KEY AUTOINCREMENT,
+                        USER_ID INTEGER NOT NULL,
+                        MONTH TEXT NOT NULL,
+                        USAGE_SECONDS INTEGER NOT NULL DEFAULT 0,
+                        DAYS INTEGER NOT NULL DEFAULT 0,
+                        FOREIGN KEY (USER_ID) REFERENCES Users(ID),
+                        UNIQUE(USER_ID, MONTH)
+                    );
+                """)
+        );
+    }
+
+    /**
+     * Adds the {@code CREATED_AT} column to an {@code Events} table created before it was part of
+     * the schema (it used to be added by hand).
+     */
+    private static void addEventCreatedAt(Connection con) throws SQLException {
+        try (Statement stm = con.createStatement()) {
+            try (ResultSet rs = stm.executeQuery("PRAGMA table_info(Events)")) {
+                while (rs.next()) {
+                    if (rs.getString("name").equalsIgnoreCase("CREATED_AT")) {
+                        return;
+                    }
+                }
+            }
+            stm.executeUpdate("ALTER TABLE Events ADD COLUMN CREATED_AT INTEGER NOT NULL DEFAULT 0");
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import org.tinylog.Logger;
+
+/**
+ * The {@code StatementCache} class keeps the prepared statements of one connection, keyed by their
+ * SQL text, so statements that are executed repeatedly are parsed and planned by SQLite only once.
+ * <p>
+ * The cache hands out a wrapper around the connection ({@link #connection()}). Its
+ * {@code prepareStatement} methods return cached statements whose {@code close()} only clears
+ * their parameters and hands them back to the cache, so the repositories keep using
+ * try-with-resources unchanged, and statements they never close no longer leak. A statement that
+ * is still in use when the same SQL is prepared again (nested or concurrent use of the connection)
+ * is not shared: an uncached statement is prepared instead. The least recently used statements
+ * are closed once the cache exceeds its capacity.
+ * </p>
+ * <p>
+ * The rows written by the cached statements (update counts) and the rows read through their
+ * result sets are reported to an optional listener, which {@link Database} uses for its metrics.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class StatementCache {
+    /**
+     * The connection the statements are prepared on.
+     */
+    private final Connection target;
+
+    /**
+     * The wrapper handed out to the repositories.
+     */
+    private final Connection connection;
+
+    /**
+     * Maximum number of cached statements.
+     */
+    private final int capacity;
+
+    /**
+     * The cached statements by key, least recently used first.
+     */
+    private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Receives the number of rows read or written by the cached statements, or {@code null}.
+     */
+    private final LongConsumer rowListener;
+
+    /**
+     * Constructs a {@code StatementCache} for a connection.
+     *
+     * @param target      The connection the statements are prepared on.
+     * @param capacity    Maximum number of cached statements.
+     * @param rowListener Receives the rows read or written by the cached statements, or {@code null}.
+     */
+    public StatementCache(Connection target, int capacity, LongConsumer rowListener) {
+        this.target = target;
+        this.capacity = capacity;
+        this.rowListener = rowListener;
+        this.connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, this::invokeConnection);
+    }
+
+    /**
+     * Gets the connection whose {@code prepareStatement} methods use this cache.
+     *
+     * @return The caching connection.
+     */
+    public Connection connection() {
+        return connection;
+    }
+
+    /**
+     * Gets the number of statements served from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of statements that had to be prepared.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of statements currently cached.
+     *
+     * @return The number of cached statements.
+     */
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * Closes every cached statement. Statements in use are closed when they are released.
+     */
+    public synchronized void close() {
+        for (CachedStatement cached : statements.values()) {
+            cached.evict();
+        }
+        statements.clear();
+    }
+
+    /**
+     * Returns a statement for the given SQL, reusing a cached one when it is not in use.
+     */
+    private synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys + ":" + sql;
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            cached.inUse = true;
+            hits.incrementAndGet();
+            return cached.proxy;
+        }
+        misses.incrementAndGet();
+        PreparedStatement statement = autoGeneratedKeys == -1
+                ? target.prepareStatement(sql)
+                : target.prepareStatement(sql, autoGeneratedKeys);
+        if (cached != null) {
+            // The cached statement is busy; this one is used once and closed normally.
+            return statement;
+        }
+        cached = new CachedStatement(statement);
+        cached.inUse = true;
+        statements.put(key, cached);
+        evictOverflow();
+        return cached.proxy;
+    }
+
+    /**
+     * Closes the least recently used statements beyond the capacity.
+     */
+    private void evictOverflow() {
+        Iterator<CachedStatement> it = statements.values().iterator();
+        while (statements.size() > capacity && it.hasNext()) {
+            it.next().evict();
+            it.remove();
+        }
+    }
+
+    private Object invokeConnection(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.equals("prepareStatement") && args.length == 1) {
+            return prepare((String) args[0], -1);
+        }
+        if (name.equals("prepareStatement") && args.length == 2 && method.getParameterTypes()[1] == int.class) {
+            return prepare((String) args[0], (Integer) args[1]);
+        }
+        if (name.equals("close")) {
+            close();
+        }
+        return invokeObjectOr(proxy, target, method, args);
+    }
+
+    /**
+     * Handles {@code equals}, {@code hashCode} and {@code toString} on a proxy, and delegates every
+     * other call to the target.
+     */
+    private static Object invokeObjectOr(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                if (args != null && args.length == 1 && method.getParameterTypes()[0] == Object.class) {
+                    return proxy == args[0];
+                }
+                break;
+            case "hashCode":
+                if (args == null || args.length == 0) {
+                    return System.identityHashCode(proxy);
+                }
+                break;
+            case "toString":
+                if (args == null || args.length == 0) {
+                    return "Cached " + target;
+                }
+                break;
+            default:
+                break;
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * A cached statement and the wrapper that returns it to the cache on close.
+     */
+    private final class CachedStatement implements InvocationHandler {
+        final PreparedStatement statement;
+        final PreparedStatement proxy;
+        boolean inUse = false;
+        boolean evicted = false;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close") && (args == null || args.length == 0)) {
+                release();
+                return null;
+            }
+            if (name.equals("isClosed") && (args == null || args.length == 0)) {
+                synchronized (StatementCache.this) {
+                    return !inUse;
+                }
+            }
+            Object result = invokeObjectOr(proxy, statement, method, args);
+            if (rowListener != null) {
+                result = countRows(name, result);
+            }
+            return result;
+        }
+
+        /**
+         * Reports the rows written by an update, and wraps result sets to report the rows read.
+         */
+        private Object countRows(String name, Object result) {
+            switch (name) {
+                case "executeUpdate":
+                    rowListener.accept((Integer) result);
+                    return result;
+                case "executeLargeUpdate":
+                    rowListener.accept((Long) result);
+                    return result;
+                case "executeBatch":
+                    long rows = 0;
+                    for (int count : (int[]) result) {
+                        // SUCCESS_NO_INFO (-2) still wrote a row; EXECUTE_FAILED (-3) did not.
+                        rows += count >= 0 ? count : count == Statement.SUCCESS_NO_INFO ? 1 : 0;
+                    }
+                    rowListener.accept(rows);
+                    return result;
+                case "executeQuery":
+                    ResultSet rs = (ResultSet) result;
+                    return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                            (rsProxy, rsMethod, rsArgs) -> {
+                                Object value = invokeObjectOr(rsProxy, rs, rsMethod, rsArgs);
+                                if (rsMethod.getName().equals("next") && Boolean.TRUE.equals(value)) {
+                                    rowListener.accept(1);
+                                }
+                                return value;
+                            });
+                default:
+                    return result;
+            }
+        }
+
+        /**
+         * Resets the statement and makes it available again, or closes it if it was evicted.
+         */
+        private void release() {
+            synchronized (StatementCache.this) {
+                if (!inUse) {
+                    return;
+                }
+                inUse = false;
+                try {
+                    if (evicted) {
+                        statement.close();
+                    } else {
+                        // An unread result keeps the statement active and its read transaction open.
+                        ResultSet rs = statement.getResultSet();
+                        if (rs != null) {
+                            rs.close();
+                        }
+                        statement.clearParameters();
+                        statement.clearBatch();
+                    }
+                } catch (SQLException e) {
+                    Logger.warn("Unable to reset a cached statement: " + e.getMessage());
+                    statements.values().remove(this);
+                    closeQuietly();
+                }
+            }
+        }
+
+        /**
+         * Removes the statement from use; it is closed now, or on release if it is in use.
+         */
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package db.Stores;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import Events.EventInfo;
+
+/**
+ * The {@code EventStore} interface stores the scheduled events of every user.
+ * <p>
+ * Writes are asynchronous: the returned futures complete once the change is durable in the
+ * backing store. Lists returned by the read methods are unmodifiable.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public interface EventStore {
+    /**
+     * Adds a new event for a user if it does not already exist.
+     * This operation is performed asynchronously.
+     *
+     * @param evt The {@link EventInfo} object containing event details.
+     */
+    default void addEvent(EventInfo evt) {
+        addEventAsync(evt);
+    }
+
+    /**
+     * Adds a new event for a user if no event with the same name exists for that user.
+     *
+     * @param evt The {@link EventInfo} object containing event details.
+     * @return A future completed with the ID of the new event, or {@code -1} if it already existed.
+     */
+    CompletableFuture<Integer> addEventAsync(EventInfo evt);
+
+    /**
+     * Removes an event.
+     * This operation is performed asynchronously.
+     *
+     * @param evt The {@link EventInfo} object representing the event to remove.
+     */
+    default void removeEvent(EventInfo evt) {
+        removeEventAsync(evt);
+    }
+
+    /**
+     * Removes an event.
+     *
+     * @param evt The {@link EventInfo} object representing the event to remove.
+     * @return A future completed once the removal is durable.
+     */
+    CompletableFuture<Void> removeEventAsync(EventInfo evt);
+
+    /**
+     * Retrieves all events for a specific user.
+     *
+     * @param userId The ID of the user.
+     * @return An unmodifiable list of {@link EventInfo} objects for the user.
+     */
+    List<EventInfo> getEvents(int userId);
+
+    /**
+     * Retrieves all events for a specific user without blocking the caller.
+     *
+     * @param userId The ID of the user.
+     * @return A future completed with an unmodifiable list of the events of the user.
+     */
+    CompletableFuture<List<EventInfo>> getEventsAsync(int userId);
+
+    /**
+     * Sets the creation time of an event.
+     * This operation is performed asynchronously.
+     *
+     * @param evt        The {@link EventInfo} object representing the event to update.
+     * @param created_at The new creation time to set.
+     */
+    default void setEventTime(EventInfo evt, long created_at) {
+        setEventTimeAsync(evt, created_at);
+    }
+
+    /**
+     * Sets the creation time of an event.
+     *
+     * @param evt        The {@link EventInfo} object representing the event to update.
+     * @param created_at The new creation time to set.
+     * @return A future completed once the update is durable.
+     */
+    CompletableFuture<Void> setEventTimeAsync(EventInfo evt, long created_at);
+
+    /**
+     * Updates the name, time and flags of an existing event.
+     * This operation is performed asynchronously.
+     *
+     * @param evt The {@link EventInfo} object containing updated event data.
+     */
+    default void updateEvent(EventInfo evt) {
+        updateEventAsync(evt);
+    }
+
+    /**
+     * Updates the name, time and flags of an existing event.
+     *
+     * @param evt The {@link EventInfo} object containing updated event data.
+     * @return A future completed once the update is durable.
+     */
+    CompletableFuture<Void> updateEventAsync(EventInfo evt);
+}
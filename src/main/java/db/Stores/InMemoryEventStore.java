@@ -0,0 +1,124 @@
+package db.Stores;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import Events.EventInfo;
+
+/**
+ * The {@code InMemoryEventStore} class keeps the scheduled events in concurrent maps, with the
+ * same behavior as the SQLite implementation and no disk I/O.
+ * <p>
+ * Events are stored as private copies indexed by ID and by user, and handed out as copies, so a
+ * caller changing an {@link EventInfo} never changes the store. Writes are serialized and durable
+ * as soon as they return, so their futures are already completed.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class InMemoryEventStore implements EventStore {
+    /**
+     * Every event by ID.
+     */
+    private final Map<Integer, EventInfo> events = new ConcurrentHashMap<>();
+
+    /**
+     * The event IDs of every user.
+     */
+    private final Map<Integer, Set<Integer>> idsByUser = new ConcurrentHashMap<>();
+
+    /**
+     * The highest ID handed out so far.
+     */
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized CompletableFuture<Integer> addEventAsync(EventInfo evt) {
+        for (EventInfo existing : getEvents(evt.getUser_id())) {
+            if (existing.getEvent_name().equals(evt.getEvent_name())) {
+                return CompletableFuture.completedFuture(-1);
+            }
+        }
+        int id = lastId.incrementAndGet();
+        events.put(id, copy(evt, id, evt.getCreated_at()));
+        idsByUser.computeIfAbsent(evt.getUser_id(), k -> ConcurrentHashMap.newKeySet()).add(id);
+        return CompletableFuture.completedFuture(id);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized CompletableFuture<Void> removeEventAsync(EventInfo evt) {
+        EventInfo removed = events.remove(evt.getId());
+        if (removed != null) {
+            Set<Integer> ids = idsByUser.get(removed.getUser_id());
+            if (ids != null) {
+                ids.remove(removed.getId());
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<EventInfo> getEvents(int userId) {
+        Set<Integer> ids = idsByUser.get(userId);
+        if (ids == null) {
+            return List.of();
+        }
+        ArrayList<EventInfo> result = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            EventInfo evt = events.get(id);
+            if (evt != null) {
+                result.add(copy(evt, evt.getId(), evt.getCreated_at()));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<List<EventInfo>> getEventsAsync(int userId) {
+        return CompletableFuture.completedFuture(getEvents(userId));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized CompletableFuture<Void> setEventTimeAsync(EventInfo evt, long created_at) {
+        events.computeIfPresent(evt.getId(), (id, stored) -> copy(stored, id, created_at));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized CompletableFuture<Void> updateEventAsync(EventInfo evt) {
+        events.computeIfPresent(evt.getId(), (id, stored) -> new EventInfo(id, stored.getUser_id(), evt.getEvent_name(),
+                evt.getTime(), evt.isBefore_at(), evt.isRepeat(), stored.getCreated_at()));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Removes every event of a user.
+     *
+     * @param userId The ID of the user.
+     */
+    synchronized void removeUser(int userId) {
+        Set<Integer> ids = idsByUser.remove(userId);
+        if (ids != null) {
+            for (int id : ids) {
+                events.remove(id);
+            }
+        }
+    }
+
+    private static EventInfo copy(EventInfo evt, int id, long created_at) {
+        return new EventInfo(id, evt.getUser_id(), evt.getEvent_name(), evt.getTime(), evt.isBefore_at(), evt.isRepeat(), created_at);
+    }
+}
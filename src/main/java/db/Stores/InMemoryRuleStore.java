@@ -0,0 +1,199 @@
+package db.Stores;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import Processes.ProcessInfo;
+
+/**
+ * The {@code InMemoryRuleStore} class keeps the process rules in concurrent maps, with the same
+ * behavior as the SQLite implementation and no disk I/O.
+ * <p>
+ * Rules are stored as immutable values indexed by ID and by user, so reads never lock and time
+ * increments are atomic per rule. Writes that check before changing (adding, renaming, removing)
+ * are serialized. Writes are durable as soon as they return, so their futures are already
+ * completed.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class InMemoryRuleStore implements RuleStore {
+    /**
+     * Every rule by ID.
+     */
+    private final Map<Integer, Rule> rules = new ConcurrentHashMap<>();
+
+    /**
+     * The rule IDs of every user.
+     */
+    private final Map<Integer, Set<Integer>> idsByUser = new ConcurrentHashMap<>();
+
+    /**
+     * The highest ID handed out so far.
+     */
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<Void> updateTimeAsync(int process_id, int seconds) {
+        rules.computeIfPresent(process_id, (id, rule) -> rule.withTotalTime(rule.totalTime + seconds));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<Integer> addTimes(List<ProcessInfo> deltas) {
+        for (ProcessInfo prs : deltas) {
+            rules.computeIfPresent(prs.getId(), (id, rule) -> rule.withTotalTime(rule.totalTime + prs.getTotal_time()));
+        }
+        return CompletableFuture.completedFuture(deltas.size());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<Void> setTimeLimitAsync(ProcessInfo prs) {
+        rules.computeIfPresent(prs.getId(), (id, rule) -> rule.withTimeLimit(prs.getTime_limit()));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getTimeLimit(int process_id) {
+        Rule rule = rules.get(process_id);
+        return rule == null ? 0 : rule.timeLimit;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<Integer> getTimeLimitAsync(int process_id) {
+        return CompletableFuture.completedFuture(getTimeLimit(process_id));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getTime(int process_id) {
+        Rule rule = rules.get(process_id);
+        return rule == null ? 0 : rule.totalTime;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<Integer> getTimeAsync(int process_id) {
+        return CompletableFuture.completedFuture(getTime(process_id));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized CompletableFuture<Void> removeProcessAsync(ProcessInfo prs) {
+        Rule removed = rules.remove(prs.getId());
+        if (removed != null) {
+            idsOf(removed.userId).remove(removed.id);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<ProcessInfo> getProcesses(int user_id) {
+        Set<Integer> ids = idsByUser.get(user_id);
+        if (ids == null) {
+            return List.of();
+        }
+        ArrayList<ProcessInfo> result = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Rule rule = rules.get(id);
+            if (rule != null) {
+                result.add(new ProcessInfo(rule.id, rule.userId, rule.name, rule.totalTime, rule.timeLimit));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<List<ProcessInfo>> getProcessesAsync(int user_id) {
+        return CompletableFuture.completedFuture(getProcesses(user_id));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized CompletableFuture<Void> updateProcessAsync(ProcessInfo prs) {
+        rules.computeIfPresent(prs.getId(), (id, rule) ->
+                new Rule(rule.id, rule.userId, prs.getProcess_name(), rule.totalTime, prs.getTime_limit()));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized CompletableFuture<Integer> addProcessAsync(ProcessInfo prs) {
+        int id = -1;
+        for (int existing : idsOf(prs.getUser_id())) {
+            Rule rule = rules.get(existing);
+            if (rule != null && rule.name.equals(prs.getProcess_name())) {
+                id = rule.id;
+                break;
+            }
+        }
+        if (id == -1) {
+            id = lastId.incrementAndGet();
+            rules.put(id, new Rule(id, prs.getUser_id(), prs.getProcess_name(), 0, prs.getTime_limit()));
+            idsOf(prs.getUser_id()).add(id);
+        } else {
+            rules.computeIfPresent(id, (key, rule) -> rule.withTimeLimit(prs.getTime_limit()));
+        }
+        prs.setId(id);
+        return CompletableFuture.completedFuture(id);
+    }
+
+    /**
+     * Removes every rule of a user.
+     *
+     * @param userId The ID of the user.
+     */
+    synchronized void removeUser(int userId) {
+        Set<Integer> ids = idsByUser.remove(userId);
+        if (ids != null) {
+            for (int id : ids) {
+                rules.remove(id);
+            }
+        }
+    }
+
+    private Set<Integer> idsOf(int userId) {
+        return idsByUser.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * A rule as stored; changes replace the whole value.
+     */
+    private static final class Rule {
+        final int id;
+        final int userId;
+        final String name;
+        final int totalTime;
+        final int timeLimit;
+
+        Rule(int id, int userId, String name, int totalTime, int timeLimit) {
+            this.id = id;
+            this.userId = userId;
+            this.name = name;
+            this.totalTime = totalTime;
+            this.timeLimit = timeLimit;
+        }
+
+        Rule withTotalTime(int totalTime) {
+            return new Rule(id, userId, name, totalTime, timeLimit);
+        }
+
+        Rule withTimeLimit(int timeLimit) {
+            return new Rule(id, userId, name, totalTime, timeLimit);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package db.Stores;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import Processes.ProcessInfo;
+import Processes.UserInfo;
+
+/**
+ * The {@code InMemoryUsageStore} class keeps the usage tracking counters in concurrent maps, with
+ * the same behavior as the SQLite implementation and no disk I/O.
+ * <p>
+ * Counters are indexed by user and process name; an increment is a single atomic add, so any
+ * number of threads can track usage without locking. Writes are durable as soon as they return,
+ * so their futures are already completed.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class InMemoryUsageStore implements UsageStore {
+    /**
+     * The counters of every user, by process name.
+     */
+    private final Map<Integer, Map<String, Usage>> usageByUser = new ConcurrentHashMap<>();
+
+    /**
+     * The highest record ID handed out so far.
+     */
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<Void> updateUsageTimeAsync(ProcessInfo prs, int seconds) {
+        usage(prs.getUser_id(), prs.getProcess_name()).time.addAndGet(seconds);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<Integer> addUsageTimes(List<ProcessInfo> deltas) {
+        for (ProcessInfo prs : deltas) {
+            usage(prs.getUser_id(), prs.getProcess_name()).time.addAndGet(prs.getTotal_time());
+        }
+        return CompletableFuture.completedFuture(deltas.size());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isUsageTracked(ProcessInfo prs) {
+        Map<String, Usage> usage = usageByUser.get(prs.getUser_id());
+        return usage != null && usage.containsKey(prs.getProcess_name());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<Boolean> isUsageTrackedAsync(ProcessInfo prs) {
+        return CompletableFuture.completedFuture(isUsageTracked(prs));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ArrayList<ProcessInfo> getUsageTrackingTopTen(UserInfo user) {
+        ArrayList<ProcessInfo> usage = getUsageTracking(user);
+        usage.removeIf(prs -> prs.getProcess_name().equals("svchost.exe"));
+        usage.sort(Comparator.comparingInt(ProcessInfo::getTotal_time).reversed());
+        return new ArrayList<>(usage.subList(0, Math.min(10, usage.size())));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<ArrayList<ProcessInfo>> getUsageTrackingTopTenAsync(UserInfo user) {
+        return CompletableFuture.completedFuture(getUsageTrackingTopTen(user));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ArrayList<ProcessInfo> getUsageTracking(UserInfo user) {
+        int userId = user.getId() - 1;
+        ArrayList<ProcessInfo> resArray = new ArrayList<>();
+        Map<String, Usage> usage = usageByUser.get(userId);
+        if (usage != null) {
+            for (Usage record : usage.values()) {
+                ProcessInfo processInfo = new ProcessInfo(record.id, userId, record.name, 0, 0);
+                processInfo.setTotal_time((int) record.time.get());
+                resArray.add(processInfo);
+            }
+        }
+        return resArray;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<ArrayList<ProcessInfo>> getUsageTrackingAsync(UserInfo user) {
+        return CompletableFuture.completedFuture(getUsageTracking(user));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<Integer> addUsageTimeAsync(ProcessInfo prs) {
+        Map<String, Usage> usage = usageByUser.computeIfAbsent(prs.getUser_id(), k -> new ConcurrentHashMap<>());
+        boolean[] created = {false};
+        Usage record = usage.computeIfAbsent(prs.getProcess_name(), name -> {
+            created[0] = true;
+            return new Usage(lastId.incrementAndGet(), name);
+        });
+        return CompletableFuture.completedFuture(created[0] ? record.id : -1);
+    }
+
+    /**
+     * Returns the counter of a user and process name, creating it if needed.
+     */
+    private Usage usage(int userId, String name) {
+        return usageByUser.computeIfAbsent(userId, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(name, n -> new Usage(lastId.incrementAndGet(), n));
+    }
+
+    /**
+     * The usage record of one user and process name.
+     */
+    private static final class Usage {
+        final int id;
+        final String name;
+        final AtomicLong time = new AtomicLong();
+
+        Usage(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package db.Stores;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import Processes.UserInfo;
+
+/**
+ * The {@code InMemoryUserStore} class keeps the users in a concurrent map, with the same behavior
+ * as the SQLite implementation and no disk I/O.
+ * <p>
+ * Deleting a user also deletes its rules and events from the in-memory stores it was created
+ * with. Writes are serialized and durable as soon as they return, so their futures are already
+ * completed and {@code onCreated} callbacks run on the calling thread.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class InMemoryUserStore implements UserStore {
+    /**
+     * The name of every user by ID, in ID order like the {@code Users} table.
+     */
+    private final Map<Integer, String> users = new ConcurrentSkipListMap<>();
+
+    /**
+     * The highest ID handed out so far.
+     */
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    private final InMemoryRuleStore rules;
+    private final InMemoryEventStore events;
+
+    /**
+     * Constructs an {@code InMemoryUserStore}.
+     *
+     * @param rules  The rules of the users.
+     * @param events The events of the users.
+     */
+    public InMemoryUserStore(InMemoryRuleStore rules, InMemoryEventStore events) {
+        this.rules = rules;
+        this.events = events;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<UserInfo> getUsers() {
+        ArrayList<UserInfo> resArray = new ArrayList<>(users.size());
+        users.forEach((id, name) -> resArray.add(new UserInfo(name, id)));
+        return Collections.unmodifiableList(resArray);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<List<UserInfo>> getUsersAsync() {
+        return CompletableFuture.completedFuture(getUsers());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isUserName(String name) {
+        return users.containsValue(name);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CompletableFuture<Boolean> isUserNameAsync(String name) {
+        return CompletableFuture.completedFuture(isUserName(name));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean createUser(String name, Runnable onCreated) {
+        int id = createUserAsync(name).join();
+        if (id == -1) {
+            return false;
+        }
+        if (onCreated != null) {
+            onCreated.run();
+        }
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized CompletableFuture<Integer> createUserAsync(String name) {
+        if (isUserName(name)) {
+            return CompletableFuture.completedFuture(-1);
+        }
+        int id = lastId.incrementAndGet();
+        users.put(id, name);
+        return CompletableFuture.completedFuture(id);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized CompletableFuture<Void> deleteUserAsync(UserInfo user) {
+        // Rules and events are keyed by the user index, one less than the user ID, as in the database.
+        rules.removeUser(user.getId() - 1);
+        events.removeUser(user.getId() - 1);
+        users.remove(user.getId());
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,206 @@
+package db.Stores;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import Processes.ProcessInfo;
+import Processes.UserInfo;
+
+/**
+ * The {@code RuleStore} interface stores the process rules of every user: the monitored process
+ * names, the total time spent in them and their time limits.
+ * <p>
+ * Writes are asynchronous: the returned futures complete once the change is durable in the
+ * backing store. Lists returned by the read methods are unmodifiable.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public interface RuleStore {
+    /**
+     * Increments the total tracked time for a process by the given number of seconds.
+     * This operation is performed asynchronously.
+     *
+     * @param process_id The ID of the process to update.
+     * @param seconds    The elapsed time to add, in seconds.
+     */
+    default void updateTime(int process_id, int seconds) {
+        updateTimeAsync(process_id, seconds);
+    }
+
+    /**
+     * Increments the total tracked time for a process by the given number of seconds.
+     *
+     * @param process_id The ID of the process to update.
+     * @param seconds    The elapsed time to add, in seconds.
+     * @return A future completed once the update is durable.
+     */
+    CompletableFuture<Void> updateTimeAsync(int process_id, int seconds);
+
+    /**
+     * Adds accumulated time to the total of several processes at once.
+     * Each {@link ProcessInfo} carries the process ID and the number of seconds to add in its total time.
+     *
+     * @param deltas The processes and the time to add to each of them.
+     * @return A future completed with the number of processes updated once the change is durable.
+     */
+    CompletableFuture<Integer> addTimes(List<ProcessInfo> deltas);
+
+    /**
+     * Sets or updates the time limit for a given process.
+     * This operation is performed asynchronously.
+     *
+     * @param prs The {@link ProcessInfo} object containing process ID and time limit.
+     */
+    default void setTimeLimit(ProcessInfo prs) {
+        setTimeLimitAsync(prs);
+    }
+
+    /**
+     * Sets or updates the time limit for a given process.
+     *
+     * @param prs The {@link ProcessInfo} object containing process ID and time limit.
+     * @return A future completed once the time limit is durable.
+     */
+    CompletableFuture<Void> setTimeLimitAsync(ProcessInfo prs);
+
+    /**
+     * Retrieves the time limit for a specific process.
+     *
+     * @param process_id The ID of the process.
+     * @return The time limit in seconds, or 0 if not set.
+     */
+    int getTimeLimit(int process_id);
+
+    /**
+     * Retrieves the time limit of a specific process without blocking the caller.
+     *
+     * @param process_id The ID of the process.
+     * @return A future completed with the time limit in seconds, or 0 if not set.
+     */
+    CompletableFuture<Integer> getTimeLimitAsync(int process_id);
+
+    /**
+     * Retrieves all processes for a given user that appear to be URLs (by extension).
+     *
+     * @param user The {@link UserInfo} object representing the user.
+     * @return A list of {@link ProcessInfo} objects representing URL-like processes.
+     */
+    default List<ProcessInfo> getURLS(UserInfo user) {
+        return urls(getProcesses(user.getId() - 1));
+    }
+
+    /**
+     * Retrieves all processes for a given user that appear to be URLs without blocking the caller.
+     *
+     * @param user The {@link UserInfo} object representing the user.
+     * @return A future completed with the URL-like processes.
+     */
+    default CompletableFuture<List<ProcessInfo>> getURLSAsync(UserInfo user) {
+        return getProcessesAsync(user.getId() - 1).thenApply(RuleStore::urls);
+    }
+
+    /**
+     * Retrieves the total tracked time for a specific process.
+     *
+     * @param process_id The ID of the process.
+     * @return The total time in seconds.
+     */
+    int getTime(int process_id);
+
+    /**
+     * Retrieves the total time of a specific process without blocking the caller.
+     *
+     * @param process_id The ID of the process.
+     * @return A future completed with the total time in seconds.
+     */
+    CompletableFuture<Integer> getTimeAsync(int process_id);
+
+    /**
+     * Removes a process and its associated time limits.
+     * This operation is performed asynchronously.
+     *
+     * @param prs The {@link ProcessInfo} object representing the process to remove.
+     */
+    default void removeProcess(ProcessInfo prs) {
+        removeProcessAsync(prs);
+    }
+
+    /**
+     * Removes a process and its associated time limits.
+     *
+     * @param prs The {@link ProcessInfo} object representing the process to remove.
+     * @return A future completed once the removal is durable.
+     */
+    CompletableFuture<Void> removeProcessAsync(ProcessInfo prs);
+
+    /**
+     * Retrieves all processes for a specific user together with their time limits.
+     *
+     * @param user_id The ID of the user.
+     * @return An unmodifiable list of {@link ProcessInfo} objects.
+     */
+    List<ProcessInfo> getProcesses(int user_id);
+
+    /**
+     * Retrieves all processes for a specific user together with their time limits without
+     * blocking the caller.
+     *
+     * @param user_id The ID of the user.
+     * @return A future completed with an unmodifiable list of {@link ProcessInfo} objects.
+     */
+    CompletableFuture<List<ProcessInfo>> getProcessesAsync(int user_id);
+
+    /**
+     * Updates the name and time limit of a process.
+     * This operation is performed asynchronously.
+     *
+     * @param prs The {@link ProcessInfo} object containing updated process data.
+     */
+    default void updateProcess(ProcessInfo prs) {
+        updateProcessAsync(prs);
+    }
+
+    /**
+     * Updates the name and time limit of a process.
+     *
+     * @param prs The {@link ProcessInfo} object containing updated process data.
+     * @return A future completed once the update is durable.
+     */
+    CompletableFuture<Void> updateProcessAsync(ProcessInfo prs);
+
+    /**
+     * Adds a new process for a specific user if it does not already exist, and sets its time limit.
+     * This operation is performed asynchronously.
+     *
+     * @param prs The {@link ProcessInfo} object containing process details.
+     */
+    default void addProcess(ProcessInfo prs) {
+        addProcessAsync(prs);
+    }
+
+    /**
+     * Adds a new process for a specific user, or finds the existing one with the same name, and
+     * sets its time limit.
+     *
+     * @param prs The {@link ProcessInfo} object containing process details; its ID is updated.
+     * @return A future completed with the ID of the process once the changes are durable.
+     */
+    CompletableFuture<Integer> addProcessAsync(ProcessInfo prs);
+
+    /**
+     * Selects the processes whose name looks like a web address.
+     */
+    private static List<ProcessInfo> urls(List<ProcessInfo> rules) {
+        ArrayList<ProcessInfo> resArray = new ArrayList<>();
+        for (ProcessInfo prs : rules) {
+            String name = prs.getProcess_name().toLowerCase();
+            if (name.contains(".com") || name.contains(".net") || name.contains(".org") || name.contains(".edu")) {
+                resArray.add(prs);
+            }
+        }
+        return resArray;
+    }
+}
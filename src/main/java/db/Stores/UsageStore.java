@@ -0,0 +1,120 @@
+package db.Stores;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import Processes.ProcessInfo;
+import Processes.UserInfo;
+
+/**
+ * The {@code UsageStore} interface stores the total time every user spent in every process,
+ * whether or not a rule exists for it.
+ * <p>
+ * Writes are asynchronous: the returned futures complete once the change is durable in the
+ * backing store.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public interface UsageStore {
+    /**
+     * Increments the total tracked time for a process by the given number of seconds, creating its
+     * usage record if needed.
+     * This operation is performed asynchronously.
+     *
+     * @param prs     The Process to update.
+     * @param seconds The elapsed time to add, in seconds.
+     */
+    default void updateUsageTime(ProcessInfo prs, int seconds) {
+        updateUsageTimeAsync(prs, seconds);
+    }
+
+    /**
+     * Increments the total tracked time for a process by the given number of seconds, creating its
+     * usage record if needed.
+     *
+     * @param prs     The Process to update.
+     * @param seconds The elapsed time to add, in seconds.
+     * @return A future completed once the update is durable.
+     */
+    CompletableFuture<Void> updateUsageTimeAsync(ProcessInfo prs, int seconds);
+
+    /**
+     * Adds accumulated usage time for several processes at once, creating the usage records of
+     * processes seen for the first time.
+     * Each {@link ProcessInfo} carries the number of seconds to add in its total time.
+     *
+     * @param deltas The processes and the time to add to each of them.
+     * @return A future completed with the number of processes written once the change is durable.
+     */
+    CompletableFuture<Integer> addUsageTimes(List<ProcessInfo> deltas);
+
+    /**
+     * Checks if a process is already being tracked for usage for a specific user.
+     *
+     * @param prs The {@link ProcessInfo} object containing process and user details.
+     * @return {@code true} if the process is tracked, {@code false} otherwise.
+     */
+    boolean isUsageTracked(ProcessInfo prs);
+
+    /**
+     * Checks if a process is already being tracked for usage for a specific user without blocking
+     * the caller.
+     *
+     * @param prs The {@link ProcessInfo} object containing process and user details.
+     * @return A future completed with {@code true} if the process is tracked.
+     */
+    CompletableFuture<Boolean> isUsageTrackedAsync(ProcessInfo prs);
+
+    /**
+     * Retrieves the ten most used processes of a specific user, {@code svchost.exe} excluded.
+     *
+     * @param user The {@link UserInfo} object representing the user.
+     * @return A list of {@link ProcessInfo} objects with usage time, most used first.
+     */
+    ArrayList<ProcessInfo> getUsageTrackingTopTen(UserInfo user);
+
+    /**
+     * Retrieves the ten most used processes of a specific user without blocking the caller.
+     *
+     * @param user The {@link UserInfo} object representing the user.
+     * @return A future completed with the usage tracking records.
+     */
+    CompletableFuture<ArrayList<ProcessInfo>> getUsageTrackingTopTenAsync(UserInfo user);
+
+    /**
+     * Retrieves all usage tracking records for a specific user.
+     *
+     * @param user The {@link UserInfo} object representing the user.
+     * @return A list of {@link ProcessInfo} objects with usage time for each tracked process.
+     */
+    ArrayList<ProcessInfo> getUsageTracking(UserInfo user);
+
+    /**
+     * Retrieves all usage tracking records for a specific user without blocking the caller.
+     *
+     * @param user The {@link UserInfo} object representing the user.
+     * @return A future completed with the usage tracking records.
+     */
+    CompletableFuture<ArrayList<ProcessInfo>> getUsageTrackingAsync(UserInfo user);
+
+    /**
+     * Adds a new usage tracking record for a process and user, if not already present.
+     * This operation is performed asynchronously.
+     *
+     * @param prs The {@link ProcessInfo} object containing process and user details.
+     */
+    default void addUsageTime(ProcessInfo prs) {
+        addUsageTimeAsync(prs);
+    }
+
+    /**
+     * Adds a new usage tracking record for a process and user, if not already present.
+     *
+     * @param prs The {@link ProcessInfo} object containing process and user details.
+     * @return A future completed with the ID of the new record, or {@code -1} if it already existed.
+     */
+    CompletableFuture<Integer> addUsageTimeAsync(ProcessInfo prs);
+}
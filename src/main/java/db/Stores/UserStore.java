@@ -0,0 +1,83 @@
+package db.Stores;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import Processes.UserInfo;
+
+/**
+ * The {@code UserStore} interface stores the monitored users.
+ * <p>
+ * Writes are asynchronous: the returned futures complete once the change is durable in the
+ * backing store. Lists returned by the read methods are unmodifiable.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public interface UserStore {
+    /**
+     * Retrieves all users.
+     *
+     * @return An unmodifiable list of {@link UserInfo} objects.
+     */
+    List<UserInfo> getUsers();
+
+    /**
+     * Retrieves all users without blocking the caller.
+     *
+     * @return A future completed with an unmodifiable list of {@link UserInfo} objects.
+     */
+    CompletableFuture<List<UserInfo>> getUsersAsync();
+
+    /**
+     * Checks if a user with the given name exists.
+     *
+     * @param name The username to check.
+     * @return {@code true} if the user exists, {@code false} otherwise.
+     */
+    boolean isUserName(String name);
+
+    /**
+     * Checks if a user with the given name exists without blocking the caller.
+     *
+     * @param name The username to check.
+     * @return A future completed with {@code true} if the user exists.
+     */
+    CompletableFuture<Boolean> isUserNameAsync(String name);
+
+    /**
+     * Creates a new user with the specified name if it does not already exist.
+     *
+     * @param name      The name of the new user.
+     * @param onCreated Run once the user has been created, may be {@code null}.
+     * @return {@code true} if the user will be created, {@code false} if the user already exists.
+     */
+    boolean createUser(String name, Runnable onCreated);
+
+    /**
+     * Creates a new user with the specified name if it does not already exist.
+     *
+     * @param name The name of the new user.
+     * @return A future completed with the ID of the new user, or {@code -1} if it already existed.
+     */
+    CompletableFuture<Integer> createUserAsync(String name);
+
+    /**
+     * Deletes a user and all associated processes, time limits, and events.
+     * This operation is performed asynchronously.
+     *
+     * @param user The {@link UserInfo} object representing the user to delete.
+     */
+    default void deleteUser(UserInfo user) {
+        deleteUserAsync(user);
+    }
+
+    /**
+     * Deletes a user and all associated processes, time limits, and events.
+     *
+     * @param user The {@link UserInfo} object representing the user to delete.
+     * @return A future completed once the deletion is durable.
+     */
+    CompletableFuture<Void> deleteUserAsync(UserInfo user);
+}
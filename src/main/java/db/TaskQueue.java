@@ -0,0 +1,409 @@
+package db;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * The {@code TaskQueue} class is the bounded queue of the database thread.
+ * <p>
+ * Besides plain tasks, it accepts keyed tasks through {@link #merge(Object, Supplier, Consumer)}:
+ * while a task with the same key is still waiting, the new update is merged into it instead of
+ * being queued, so repeated writes to the same row (such as usage increments for one process)
+ * occupy a single slot however long the database is stalled.
+ * </p>
+ * <p>
+ * When the queue holds {@code capacity} tasks, producers follow the {@link OverflowPolicy}: they
+ * either wait for room (up to a maximum time) or are rejected with a
+ * {@link RejectedExecutionException}. Tasks queued by the consumer thread itself are always
+ * admitted, since it could never make room for them while waiting. Merges into a waiting task
+ * never block, and a producer that must not stall can ask to be rejected instead of waiting.
+ * </p>
+ * <p>
+ * After {@link #close()}, producers are rejected and {@link #take()} returns {@code null} once
+ * the waiting tasks have been taken, which lets the consumer drain the queue and stop.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class TaskQueue {
+    /**
+     * What a producer does when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait for room, up to the maximum wait of the queue, then reject the task.
+         */
+        BLOCK,
+
+        /**
+         * Reject the task immediately.
+         */
+        REJECT
+    }
+
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * The waiting tasks, oldest first.
+     */
+    private final ArrayDeque<Node> tasks = new ArrayDeque<>();
+
+    /**
+     * The waiting keyed tasks by key.
+     */
+    private final Map<Object, Node> keyed = new HashMap<>();
+
+    /**
+     * The thread taking tasks, which is never blocked by its own submissions.
+     */
+    private volatile Thread consumer;
+
+    /**
+     * Set by {@link #close()}; new tasks are rejected.
+     */
+    private boolean closed = false;
+
+    private long peakDepth = 0;
+    private long enqueued = 0;
+    private long merged = 0;
+    private long rejected = 0;
+
+    /**
+     * Constructs a {@code TaskQueue}.
+     *
+     * @param capacity     Maximum number of waiting tasks.
+     * @param policy       What a producer does when the queue is full.
+     * @param maxWaitMillis How long a producer waits for room under {@link OverflowPolicy#BLOCK}.
+     */
+    public TaskQueue(int capacity, OverflowPolicy policy, long maxWaitMillis) {
+        this.capacity = capacity;
+        this.policy = policy;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    }
+
+    /**
+     * Adds a task at the end of the queue.
+     *
+     * @param task The task to add.
+     * @throws RejectedExecutionException If the queue is closed, or full and stays full.
+     */
+    public void put(Runnable task) {
+        put(task, true);
+    }
+
+    /**
+     * Adds a task at the end of the queue.
+     *
+     * @param task    The task to add.
+     * @param mayWait {@code false} to reject the task at once when the queue is full, whatever the
+     *                overflow policy; used by threads that must never stall, such as the UI thread.
+     * @throws RejectedExecutionException If the queue is closed, or full and stays full.
+     */
+    public void put(Runnable task, boolean mayWait) {
+        lock.lock();
+        try {
+            checkOpen();
+            awaitRoom(mayWait);
+            enqueue(new Node(null, task));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Merges an update into the waiting task with the given key, or queues a new task for it if
+     * none is waiting. A task that was already taken by the consumer is never merged into.
+     *
+     * @param key    Identifies the row the task writes.
+     * @param create Creates the task when none is waiting for the key.
+     * @param merge  Merges the update into the waiting task; runs while the queue is locked.
+     * @param <T>    The type of the keyed task.
+     * @return The task that will carry the update.
+     * @throws RejectedExecutionException If the queue is closed, or a new task is needed and the
+     *                                    queue is full and stays full.
+     */
+    public <T extends Runnable> T merge(Object key, Supplier<T> create, Consumer<T> merge) {
+        return merge(key, create, merge, true);
+    }
+
+    /**
+     * Merges an update into the waiting task with the given key, or queues a new task for it if
+     * none is waiting.
+     *
+     * @param key     Identifies the row the task writes.
+     * @param create  Creates the task when none is waiting for the key.
+     * @param merge   Merges the update into the waiting task; runs while the queue is locked.
+     * @param mayWait {@code false} to reject a new task at once when the queue is full, whatever
+     *                the overflow policy.
+     * @param <T>     The type of the keyed task.
+     * @return The task that will carry the update.
+     * @throws RejectedExecutionException If the queue is closed, or a new task is needed and the
+     *                                    queue is full and stays full.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Runnable> T merge(Object key, Supplier<T> create, Consumer<T> merge, boolean mayWait) {
+        lock.lock();
+        try {
+            checkOpen();
+            Node node = keyed.get(key);
+            if (node != null) {
+                merge.accept((T) node.task);
+                merged++;
+                return (T) node.task;
+            }
+            awaitRoom(mayWait);
+            // Waiting for room released the lock; another producer may have queued the key meanwhile.
+            node = keyed.get(key);
+            if (node != null) {
+                merge.accept((T) node.task);
+                merged++;
+                return (T) node.task;
+            }
+            T task = create.get();
+            node = new Node(key, task);
+            keyed.put(key, node);
+            enqueue(node);
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a task and removes it from the queue.
+     *
+     * @return The oldest waiting task, or {@code null} if the queue is closed and empty.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public Runnable take() throws InterruptedException {
+        consumer = Thread.currentThread();
+        lock.lockInterruptibly();
+        try {
+            while (tasks.isEmpty()) {
+                if (closed) {
+                    return null;
+                }
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the oldest waiting task, if any.
+     *
+     * @return The oldest waiting task, or {@code null} if the queue is empty.
+     */
+    public Runnable poll() {
+        lock.lock();
+        try {
+            return tasks.isEmpty() ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the oldest waiting task if it is accepted by the filter.
+     *
+     * @param accept Tests the oldest waiting task; runs while the queue is locked.
+     * @return The oldest waiting task, or {@code null} if the queue is empty or the task was not
+     *         accepted, in which case it stays queued.
+     */
+    public Runnable poll(Predicate<Runnable> accept) {
+        lock.lock();
+        try {
+            return tasks.isEmpty() || !accept.test(tasks.peek().task) ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting tasks from producers. The tasks already waiting stay queued, and the
+     * consumer may still queue follow-up tasks while it drains them.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every waiting task.
+     *
+     * @return The removed tasks, oldest first.
+     */
+    public List<Runnable> clear() {
+        lock.lock();
+        try {
+            List<Runnable> removed = new ArrayList<>(tasks.size());
+            for (Node node : tasks) {
+                removed.add(node.task);
+            }
+            tasks.clear();
+            keyed.clear();
+            notFull.signalAll();
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of waiting tasks.
+     *
+     * @return The queue depth.
+     */
+    public int depth() {
+        lock.lock();
+        try {
+            return tasks.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the highest number of tasks that were waiting at the same time.
+     *
+     * @return The peak queue depth.
+     */
+    public long getPeakDepth() {
+        lock.lock();
+        try {
+            return peakDepth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of tasks that were queued.
+     *
+     * @return The number of queued tasks.
+     */
+    public long getEnqueuedCount() {
+        lock.lock();
+        try {
+            return enqueued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of updates merged into a waiting task instead of being queued.
+     *
+     * @return The number of merged updates.
+     */
+    public long getMergedCount() {
+        lock.lock();
+        try {
+            return merged;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of tasks rejected because the queue was full or closed.
+     *
+     * @return The number of rejected tasks.
+     */
+    public long getRejectedCount() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rejects the task if the queue is closed, unless the consumer queues it. Must be called with
+     * the lock held.
+     */
+    private void checkOpen() {
+        if (closed && Thread.currentThread() != consumer) {
+            rejected++;
+            throw new RejectedExecutionException("Database task queue is closed");
+        }
+    }
+
+    /**
+     * Waits until there is room for one more task, according to the overflow policy, or not at all
+     * if the caller may not wait. Must be called with the lock held.
+     */
+    private void awaitRoom(boolean mayWait) {
+        if (tasks.size() < capacity || Thread.currentThread() == consumer) {
+            return;
+        }
+        long remaining = policy == OverflowPolicy.BLOCK && mayWait ? maxWaitNanos : 0;
+        try {
+            while (tasks.size() >= capacity && remaining > 0) {
+                remaining = notFull.awaitNanos(remaining);
+                checkOpen();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (tasks.size() >= capacity) {
+            rejected++;
+            throw new RejectedExecutionException("Database task queue is full (" + capacity + " tasks)");
+        }
+    }
+
+    private void enqueue(Node node) {
+        tasks.add(node);
+        enqueued++;
+        peakDepth = Math.max(peakDepth, tasks.size());
+        notEmpty.signal();
+    }
+
+    private Runnable dequeue() {
+        Node node = tasks.poll();
+        if (node.key != null) {
+            keyed.remove(node.key);
+        }
+        notFull.signal();
+        return node.task;
+    }
+
+    /**
+     * A waiting task and its key, {@code null} for plain tasks.
+     */
+    private static final class Node {
+        final Object key;
+        final Runnable task;
+
+        Node(Object key, Runnable task) {
+            this.key = key;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package db;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.tinylog.Logger;
+
+import Processes.ProcessInfo;
+
+/**
+ * The {@code UsageAccumulator} class buffers usage tracking increments and process rule time in
+ * memory and writes them to the database in batches.
+ * <p>
+ * Increments are summed per (user, process name) and per process rule in {@link LongAdder}s, so
+ * adding time never touches the database. Usage counters are keyed by the user ID and the
+ * {@link ProcessNameDictionary} ID of the name, packed into one {@code long}. {@link #flush()} drains every pending counter and writes
+ * them in batched transactions; it is called periodically by the monitoring pipeline and on
+ * shutdown. If a batch fails, its increments are put back and retried with the next flush.
+ * </p>
+ * <p>
+ * When a {@link UsageJournal} is attached, every increment is also recorded in it, so time that
+ * was not flushed before a crash is restored by {@link #replayJournal()} on the next start.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class UsageAccumulator {
+    /**
+     * How often the monitoring pipeline flushes the accumulated usage, in seconds.
+     */
+    public static final int FLUSH_INTERVAL_SECONDS = 60;
+
+    /**
+     * The database the counters are flushed to.
+     */
+    private final Database db;
+
+    /**
+     * Crash-safe copy of the pending counters, or {@code null} if journaling is unavailable.
+     */
+    private final UsageJournal journal;
+
+    /**
+     * Pending seconds of usage per (user, process name ID), see {@link #key(int, int)}.
+     */
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Pending seconds of rule time per process ID.
+     */
+    private final Map<Integer, LongAdder> pendingRuleTime = new ConcurrentHashMap<>();
+
+    /**
+     * Rule time drained by a flush whose transaction has not completed yet.
+     */
+    private final Map<Integer, LongAdder> inFlightRuleTime = new ConcurrentHashMap<>();
+
+    /**
+     * Whether a full journal has already been reported, to avoid logging on every increment.
+     */
+    private volatile boolean journalFullReported = false;
+
+    /**
+     * Constructs a {@code UsageAccumulator} for the given database.
+     *
+     * @param db      The database the counters are flushed to.
+     * @param journal The journal recording unflushed counters, or {@code null} to keep them in memory only.
+     */
+    public UsageAccumulator(Database db, UsageJournal journal) {
+        this.db = db;
+        this.journal = journal;
+    }
+
+    /**
+     * Adds usage time for a process.
+     *
+     * @param userId      The ID of the user.
+     * @param processName The image name of the process.
+     * @param seconds     The number of seconds to add.
+     */
+    public void add(int userId, String processName, long seconds) {
+        pending.computeIfAbsent(key(userId, db.processNames.intern(processName)), k -> new LongAdder()).add(seconds);
+        journal(UsageJournal.KIND_USAGE, userId, processName, seconds);
+    }
+
+    /**
+     * Adds time to the total of a process rule.
+     *
+     * @param processId The ID of the process rule.
+     * @param seconds   The number of seconds to add.
+     */
+    public void addRuleTime(int processId, long seconds) {
+        pendingRuleTime.computeIfAbsent(processId, k -> new LongAdder()).add(seconds);
+        journal(UsageJournal.KIND_RULE_TIME, processId, null, seconds);
+    }
+
+    /**
+     * Gets the rule time that is not yet reflected in the database, including time drained by a
+     * flush that has not committed yet.
+     *
+     * @param processId The ID of the process rule.
+     * @return The pending seconds.
+     */
+    public long getPendingRuleTime(int processId) {
+        LongAdder adder = pendingRuleTime.get(processId);
+        LongAdder inFlight = inFlightRuleTime.get(processId);
+        return (adder == null ? 0 : adder.sum()) + (inFlight == null ? 0 : inFlight.sum());
+    }
+
+    /**
+     * Loads the counters left in the journal by a previous run into memory, so the next
+     * {@link #flush()} writes them to the database.
+     *
+     * @return The number of counters restored.
+     */
+    public int replayJournal() {
+        if (journal == null) {
+            return 0;
+        }
+        int restored = 0;
+        for (UsageJournal.Entry entry : journal.readPending()) {
+            if (entry.getKind() == UsageJournal.KIND_USAGE) {
+                pending.computeIfAbsent(key(entry.getId(), db.processNames.intern(entry.getName())), k -> new LongAdder()).add(entry.getDelta());
+            } else {
+                pendingRuleTime.computeIfAbsent(entry.getId(), k -> new LongAdder()).add(entry.getDelta());
+            }
+            restored++;
+        }
+        if (restored > 0) {
+            Logger.info("Restored " + restored + " unflushed usage counters from the journal");
+        }
+        return restored;
+    }
+
+    /**
+     * Forces the journal to disk, bounding what a power cut can lose.
+     */
+    public void syncJournal() {
+        if (journal != null) {
+            journal.sync();
+        }
+    }
+
+    /**
+     * Closes the journal. The counters it still holds are replayed on the next start.
+     */
+    public void close() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                Logger.error("Error closing usage journal: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes every pending counter to the database, usage time and rule time each in one
+     * batched transaction.
+     *
+     * @return A future completed once both batches have been committed.
+     */
+    public CompletableFuture<Integer> flush() {
+        ArrayList<ProcessInfo> usage = new ArrayList<>();
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            long seconds = entry.getValue().sumThenReset();
+            if (seconds != 0) {
+                long key = entry.getKey();
+                usage.add(new ProcessInfo(0, userId(key), db.processNames.nameOf(nameId(key)), (int) seconds));
+            }
+        }
+        ArrayList<ProcessInfo> ruleTime = new ArrayList<>();
+        for (Map.Entry<Integer, LongAdder> entry : pendingRuleTime.entrySet()) {
+            long seconds = entry.getValue().sumThenReset();
+            if (seconds != 0) {
+                inFlightRuleTime.computeIfAbsent(entry.getKey(), k -> new LongAdder()).add(seconds);
+                ruleTime.add(new ProcessInfo(entry.getKey(), 0, "", (int) seconds));
+            }
+        }
+
+        CompletableFuture<Integer> usageFlush = usage.isEmpty()
+                ? CompletableFuture.completedFuture(0)
+                : db.usageTrackingRepository.addUsageTimes(usage).whenComplete((count, e) -> {
+                    if (e != null) {
+                        Logger.error("Error flushing usage time, keeping it for the next flush: " + e.getMessage());
+                        for (ProcessInfo delta : usage) {
+                            pending.computeIfAbsent(key(delta.getUser_id(), db.processNames.intern(delta.getProcess_name())), k -> new LongAdder())
+                                    .add(delta.getTotal_time());
+                        }
+                    } else {
+                        for (ProcessInfo delta : usage) {
+                            journal(UsageJournal.KIND_USAGE, delta.getUser_id(), delta.getProcess_name(), -delta.getTotal_time());
+                        }
+                    }
+                });
+        CompletableFuture<Integer> ruleFlush = ruleTime.isEmpty()
+                ? CompletableFuture.completedFuture(0)
+                : db.processRepository.addTimes(ruleTime).whenComplete((count, e) -> {
+                    for (ProcessInfo delta : ruleTime) {
+                        inFlightRuleTime.get(delta.getId()).add(-delta.getTotal_time());
+                    }
+                    if (e != null) {
+                        Logger.error("Error flushing process time, keeping it for the next flush: " + e.getMessage());
+                        for (ProcessInfo delta : ruleTime) {
+                            pendingRuleTime.computeIfAbsent(delta.getId(), k -> new LongAdder()).add(delta.getTotal_time());
+                        }
+                    } else {
+                        for (ProcessInfo delta : ruleTime) {
+                            journal(UsageJournal.KIND_RULE_TIME, delta.getId(), null, -delta.getTotal_time());
+                        }
+                    }
+                });
+        return usageFlush.thenCombine(ruleFlush, Integer::sum);
+    }
+
+    /**
+     * Records an increment in the journal, if one is attached.
+     */
+    private void journal(int kind, int id, String name, long seconds) {
+        if (journal != null && !journal.add(kind, id, name, seconds) && !journalFullReported) {
+            journalFullReported = true;
+            Logger.warn("Usage journal is full, some counters are only kept in memory until the next flush");
+        }
+    }
+
+    /**
+     * Packs a user ID and a process name ID into the key of a usage counter, the key also used to
+     * track the elapsed time of a (user, process name).
+     *
+     * @param userId The ID of the user.
+     * @param nameId The interned ID of the process name.
+     * @return The packed key.
+     */
+    public static long key(int userId, int nameId) {
+        return ((long) userId << 32) | (nameId & 0xFFFFFFFFL);
+    }
+
+    private static int userId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int nameId(long key) {
+        return (int) key;
+    }
+}
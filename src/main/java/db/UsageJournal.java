@@ -0,0 +1,279 @@
+package db;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.tinylog.Logger;
+
+/**
+ * The {@code UsageJournal} class is a small memory-mapped file that records the usage counters
+ * that have not yet been flushed to the database, so they survive a crash or power cut.
+ * <p>
+ * The file has a fixed layout: a header followed by {@link #SLOT_COUNT} slots of
+ * {@link #SLOT_SIZE} bytes. Each counter key owns one slot holding its unflushed delta; adding
+ * time updates the slot in place and a successful flush subtracts the flushed amount. On startup,
+ * the slots with a non-zero delta are read back with {@link #readPending()} and replayed.
+ * </p>
+ * <p>
+ * Writes go to the page cache and survive a process crash immediately; {@link #sync()} forces
+ * them to disk and bounds what a power cut can lose to one sync interval. A crash in the short
+ * window between a database commit and the matching subtraction replays that flush once more.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class UsageJournal implements Closeable {
+    /**
+     * Slot kind for usage tracking time keyed by user and process name.
+     */
+    public static final int KIND_USAGE = 1;
+
+    /**
+     * Slot kind for the total time of a process rule keyed by process ID.
+     */
+    public static final int KIND_RULE_TIME = 2;
+
+    /**
+     * Identifies a journal file ("PCJ1").
+     */
+    private static final int MAGIC = 0x50434A31;
+
+    /**
+     * Layout version, stored in the header.
+     */
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_COUNT = 1024;
+    private static final int SLOT_SIZE = 128;
+
+    // Slot layout: kind (int), id (int), delta (long), name length (short), name bytes.
+    private static final int KIND_OFFSET = 0;
+    private static final int ID_OFFSET = 4;
+    private static final int DELTA_OFFSET = 8;
+    private static final int NAME_LENGTH_OFFSET = 16;
+    private static final int NAME_OFFSET = 18;
+    private static final int MAX_NAME_BYTES = SLOT_SIZE - NAME_OFFSET;
+
+    /**
+     * The channel of the journal file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapped journal file.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The slot used by every key currently in the journal.
+     */
+    private final Map<Key, Integer> slots = new HashMap<>();
+
+    /**
+     * Slots that are not in use.
+     */
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+
+    /**
+     * Opens (or creates) the journal file and loads its slot table.
+     *
+     * @param path The journal file.
+     * @throws IOException If the file cannot be opened or mapped.
+     */
+    public UsageJournal(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) SLOT_COUNT * SLOT_SIZE);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            if (buffer.getInt(0) != 0) {
+                Logger.warn("Usage journal " + path + " has an unknown layout, starting a new one");
+            }
+            for (int i = 0; i < buffer.capacity(); i += 8) {
+                buffer.putLong(i, 0);
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, SLOT_COUNT);
+            buffer.putInt(12, SLOT_SIZE);
+            buffer.force();
+        }
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            int offset = offset(slot);
+            if (buffer.getInt(offset + KIND_OFFSET) == 0) {
+                freeSlots.add(slot);
+            } else {
+                slots.put(readKey(offset), slot);
+            }
+        }
+    }
+
+    /**
+     * Adds a delta to the counter of a key, claiming a slot for it if needed.
+     *
+     * @param kind  {@link #KIND_USAGE} or {@link #KIND_RULE_TIME}.
+     * @param id    The user ID for usage time, or the process ID for rule time.
+     * @param name  The process name for usage time, or {@code null} for rule time.
+     * @param delta The seconds to add; negative after a flush.
+     * @return {@code false} if the key could not be journaled (journal full or name too long).
+     */
+    public synchronized boolean add(int kind, int id, String name, long delta) {
+        Key key = new Key(kind, id, name == null ? "" : name);
+        Integer slot = slots.get(key);
+        if (slot == null) {
+            if (delta <= 0) {
+                return true;
+            }
+            byte[] nameBytes = key.name.getBytes(StandardCharsets.UTF_8);
+            if (nameBytes.length > MAX_NAME_BYTES || freeSlots.isEmpty()) {
+                return false;
+            }
+            slot = freeSlots.poll();
+            int offset = offset(slot);
+            buffer.putInt(offset + ID_OFFSET, id);
+            buffer.putLong(offset + DELTA_OFFSET, 0);
+            buffer.putShort(offset + NAME_LENGTH_OFFSET, (short) nameBytes.length);
+            buffer.put(offset + NAME_OFFSET, nameBytes);
+            buffer.putInt(offset + KIND_OFFSET, kind);
+            slots.put(key, slot);
+        }
+        int offset = offset(slot);
+        long value = buffer.getLong(offset + DELTA_OFFSET) + delta;
+        if (value <= 0) {
+            buffer.putLong(offset + DELTA_OFFSET, 0);
+            buffer.putInt(offset + KIND_OFFSET, 0);
+            slots.remove(key);
+            freeSlots.add(slot);
+        } else {
+            buffer.putLong(offset + DELTA_OFFSET, value);
+        }
+        return true;
+    }
+
+    /**
+     * Reads every counter with unflushed time, typically left over from a previous run.
+     *
+     * @return The pending entries.
+     */
+    public synchronized List<Entry> readPending() {
+        ArrayList<Entry> pending = new ArrayList<>();
+        for (Map.Entry<Key, Integer> slot : slots.entrySet()) {
+            long delta = buffer.getLong(offset(slot.getValue()) + DELTA_OFFSET);
+            if (delta > 0) {
+                Key key = slot.getKey();
+                pending.add(new Entry(key.kind, key.id, key.name, delta));
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Forces the journal to disk.
+     */
+    public void sync() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private Key readKey(int offset) {
+        int kind = buffer.getInt(offset + KIND_OFFSET);
+        int id = buffer.getInt(offset + ID_OFFSET);
+        int length = Math.min(buffer.getShort(offset + NAME_LENGTH_OFFSET), MAX_NAME_BYTES);
+        byte[] nameBytes = new byte[Math.max(length, 0)];
+        buffer.get(offset + NAME_OFFSET, nameBytes);
+        return new Key(kind, id, new String(nameBytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A counter with unflushed time read back from the journal.
+     */
+    public static class Entry {
+        private final int kind;
+        private final int id;
+        private final String name;
+        private final long delta;
+
+        Entry(int kind, int id, String name, long delta) {
+            this.kind = kind;
+            this.id = id;
+            this.name = name;
+            this.delta = delta;
+        }
+
+        /**
+         * @return {@link #KIND_USAGE} or {@link #KIND_RULE_TIME}.
+         */
+        public int getKind() {
+            return kind;
+        }
+
+        /**
+         * @return The user ID for usage time, or the process ID for rule time.
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * @return The process name for usage time, empty for rule time.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The unflushed seconds.
+         */
+        public long getDelta() {
+            return delta;
+        }
+    }
+
+    /**
+     * Identifies the slot of a counter.
+     */
+    private static final class Key {
+        final int kind;
+        final int id;
+        final String name;
+
+        Key(int kind, int id, String name) {
+            this.kind = kind;
+            this.id = id;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return kind == other.kind && id == other.id && name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, id, name);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package db;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import org.tinylog.Logger;
+
+import Processes.DailyUsageInfo;
+
+/**
+ * The {@code UsageMaintenance} class keeps the usage history bounded on machines that run for
+ * years.
+ * <p>
+ * Daily usage records older than the retention window are rolled up into the
+ * {@code MonthlyUsage} totals, a whole month at a time, after being exported to a compressed CSV
+ * file in the archive directory. The archive is written and synced before the records are deleted,
+ * so a failure can at worst archive the same records twice, never lose them. Afterwards the pages
+ * freed by the deletes are returned to the file system with an incremental vacuum; the first run
+ * after an upgrade switches the file to incremental auto-vacuum.
+ * </p>
+ * <p>
+ * The work runs on its own thread, and only when the database task queue is empty, so it does
+ * not compete with the monitoring pipeline.
+ * </p>
+ *
+ * @author Claudiu Padure
+ * @version 1.0
+ */
+public class UsageMaintenance {
+    /**
+     * How often the maintenance job is attempted, in seconds.
+     */
+    public static final int RUN_INTERVAL_SECONDS = 3600;
+
+    /**
+     * Default number of days whose daily usage records are kept.
+     */
+    public static final int DEFAULT_RETENTION_DAYS = 90;
+
+    /**
+     * Default directory receiving the archived daily usage records.
+     */
+    public static final String DEFAULT_ARCHIVE_DIR = "archive";
+
+    /**
+     * Free pages below which the database file is not vacuumed.
+     */
+    private static final int MIN_FREE_PAGES = 256;
+
+    /**
+     * Maximum number of pages released by one incremental vacuum, so it never holds the writer long.
+     */
+    private static final int MAX_VACUUM_PAGES = 1024;
+
+    private final Database db;
+    private final int retentionDays;
+    private final Path archiveDir;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "db-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Set while a run is queued or in progress.
+     */
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * Set once the database file is known to use incremental auto-vacuum.
+     */
+    private volatile boolean incrementalVacuum = false;
+
+    /**
+     * Constructs a {@code UsageMaintenance}.
+     *
+     * @param db            The database.
+     * @param retentionDays Number of days whose daily usage records are kept.
+     * @param archiveDir    The directory receiving the archived records.
+     */
+    public UsageMaintenance(Database db, int retentionDays, Path archiveDir) {
+        this.db = db;
+        this.retentionDays = retentionDays;
+        this.archiveDir = archiveDir;
+    }
+
+    /**
+     * Starts a maintenance run in the background, unless one is already running or the database
+     * has queued tasks.
+     */
+    public void runIfIdle() {
+        if (db.getQueuedTaskCount() > 0 || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    run(LocalDate.now());
+                } catch (RuntimeException e) {
+                    Logger.error("Database maintenance failed: " + e.getMessage());
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Compacts the daily usage records outside the retention window and vacuums the database.
+     *
+     * @param today The current date.
+     */
+    public void run(LocalDate today) {
+        try {
+            enableIncrementalVacuum();
+            int compacted = compactDailyUsage(today);
+            if (compacted > 0) {
+                Logger.info("Compacted " + compacted + " daily usage records into monthly totals");
+            }
+            int released = vacuum();
+            if (released > 0) {
+                Logger.info("Released " + released + " free database pages");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException | IOException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Stops the maintenance thread; a run in progress is interrupted between its steps.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Archives and rolls up the daily usage records of the months that ended before the retention
+     * window.
+     *
+     * @return The number of compacted records.
+     */
+    private int compactDailyUsage(LocalDate today) throws SQLException, IOException, InterruptedException, ExecutionException {
+        // Only whole months are compacted, so each month is rolled up once.
+        String before = today.minusDays(retentionDays).withDayOfMonth(1).toString();
+        ArrayList<DailyUsageInfo> records = db.dailyUsageRepository.getDailyUsageBefore(before);
+        if (records.isEmpty()) {
+            return 0;
+        }
+        writeArchive(records, before);
+        return db.dailyUsageRepository.compactDailyUsageAsync(before, records.size()).get();
+    }
+
+    /**
+     * Writes the records to a new gzip-compressed CSV file and syncs it to disk.
+     */
+    private void writeArchive(ArrayList<DailyUsageInfo> records, String before) throws IOException {
+        Files.createDirectories(archiveDir);
+        String name = "DailyUsage-before-" + before + "-" + System.currentTimeMillis() + ".csv.gz";
+        Path file = archiveDir.resolve(name);
+        Path temp = archiveDir.resolve(name + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+            GZIPOutputStream gzip = new GZIPOutputStream(out);
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+            writer.write("USER_ID,DATE,USAGE_SECONDS\n");
+            for (DailyUsageInfo record : records) {
+                writer.write(record.getUserId() + "," + record.getDate() + "," + record.getTimeSpent() + "\n");
+            }
+            writer.flush();
+            gzip.finish();
+            out.getFD().sync();
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Switches the database file to incremental auto-vacuum, so free pages can be released
+     * without rewriting the whole file. The switch itself needs one full {@code VACUUM}, run once
+     * after an upgrade; it cannot run inside a transaction, so it runs as a standalone task.
+     */
+    private void enableIncrementalVacuum() throws InterruptedException, ExecutionException {
+        if (incrementalVacuum) {
+            return;
+        }
+        db.submitStandaloneTask("enableIncrementalVacuum", () -> {
+            try (Statement stm = db.getCon().createStatement()) {
+                try (ResultSet rs = stm.executeQuery("PRAGMA auto_vacuum")) {
+                    if (rs.next() && rs.getInt(1) == 2) { // INCREMENTAL
+                        return null;
+                    }
+                }
+                Logger.info("Enabling incremental auto-vacuum, rewriting the database file once");
+                stm.execute("PRAGMA auto_vacuum = INCREMENTAL");
+                stm.execute("VACUUM");
+            }
+            return null;
+        }).get();
+        incrementalVacuum = true;
+    }
+
+    /**
+     * Returns free pages to the file system if enough have accumulated.
+     *
+     * @return The number of pages released.
+     */
+    private int vacuum() throws InterruptedException, ExecutionException {
+        if (db.getQueuedTaskCount() > 0) {
+            return 0;
+        }
+        return db.submitDatabaseTask("incrementalVacuum", () -> {
+            try (Statement stm = db.getCon().createStatement()) {
+                int free;
+                try (ResultSet rs = stm.executeQuery("PRAGMA freelist_count")) {
+                    free = rs.next() ? rs.getInt(1) : 0;
+                }
+                if (free < MIN_FREE_PAGES) {
+                    return 0;
+                }
+                int pages = Math.min(free, MAX_VACUUM_PAGES);
+                // Each step of the pragma releases one page and the driver steps a statement once,
+                // so the pages are released one execution at a time.
+                for (int i = 0; i < pages; i++) {
+                    stm.execute("PRAGMA incremental_vacuum(1)");
+                }
+                return pages;
+            }
+        }).get();
+    }
+}